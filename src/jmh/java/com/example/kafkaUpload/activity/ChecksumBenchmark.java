@@ -0,0 +1,53 @@
+package com.example.kafkaUpload.activity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checksum of the virus scan activity for small, medium and large uploads,
+ * with the engine configured like the defaults in application.yml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChecksumBenchmark {
+
+    @Param({"51200", "2097152", "5242880"})
+    private int fileSize;
+
+    private ChecksumEngine checksumEngine;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        checksumEngine = new ChecksumEngine(65536, 32, 1048576);
+        byte[] content = new byte[fileSize];
+        new Random(fileSize).nextBytes(content);
+        file = Files.createTempFile("checksum-benchmark-", ".bin");
+        Files.write(file, content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String checksum() throws IOException {
+        return checksumEngine.checksum(file);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.kafkaUpload.activity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thumbnail engine hot paths: scaling an already decoded image to the default
+ * 200x200 bound, and the subsampled decode of the same image from a JPEG.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThumbnailScalingBenchmark {
+
+    @Param({"800x600", "3000x2000"})
+    private String sourceSize;
+
+    private ThumbnailEngine thumbnailEngine;
+    private BufferedImage source;
+    private Path sourceFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] dimensions = sourceSize.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        thumbnailEngine = new ThumbnailEngine();
+        source = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(32);
+                source.setRGB(x, y, ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | noise);
+            }
+        }
+        sourceFile = Files.createTempFile("thumbnail-benchmark-", ".jpg");
+        ImageIO.write(source, "jpg", sourceFile.toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public BufferedImage scaleToFit() {
+        return thumbnailEngine.scaleToFit(source, 200, 200, "jpg");
+    }
+
+    @Benchmark
+    public BufferedImage decodeSubsampled() throws IOException {
+        return thumbnailEngine.decodeSubsampled(sourceFile, 200, 200);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize and deserialize cost of the pipeline messages in both payload formats, through the
+ * same PayloadSerializer and PayloadDeserializer setup as KafkaConfig. Record sizes including
+ * headers are reported as secondary results of every benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PayloadSerdeBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"JSON", "COMPACT"})
+    private PayloadFormat format;
+
+    private PayloadSerializer serializer;
+    private PayloadDeserializer deserializer;
+    private FileProcessingMessage message;
+    private ProcessingResult result;
+    private RecordHeaders messageHeaders;
+    private byte[] messageBytes;
+    private RecordHeaders resultHeaders;
+    private byte[] resultBytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new PayloadSerializer();
+        serializer.configure(Map.of(PayloadFormat.CONFIG, format.name()), false);
+        deserializer = new PayloadDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.example.kafkaUpload.model"), false);
+
+        String fileId = UUID.randomUUID().toString();
+        message = new FileProcessingMessage(fileId, "./test-data/large_image.jpg", "large_image.jpg",
+                "jpg", 2_457_600L, LocalDateTime.now());
+
+        result = new ProcessingResult();
+        result.setFileId(fileId);
+        result.setFilePath(message.getFilePath());
+        result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+        result.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION));
+        result.setStartTime(LocalDateTime.now());
+        result.setEndTime(LocalDateTime.now());
+        result.setProcessingTimeMs(742);
+        result.setRequestCreatedAt(message.getCreatedAt());
+
+        messageHeaders = new RecordHeaders();
+        messageBytes = serializer.serialize(TOPIC, messageHeaders, message);
+        resultHeaders = new RecordHeaders();
+        resultBytes = serializer.serialize(TOPIC, resultHeaders, result);
+    }
+
+    /**
+     * Bytes per record (value + headers), written to results.json as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RecordSizes {
+        public long fileProcessingMessageBytes;
+        public long processingResultBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(PayloadSerdeBenchmark benchmark) {
+            fileProcessingMessageBytes = recordSize(benchmark.messageHeaders, benchmark.messageBytes);
+            processingResultBytes = recordSize(benchmark.resultHeaders, benchmark.resultBytes);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeFileProcessingMessage(RecordSizes sizes) {
+        return serializer.serialize(TOPIC, new RecordHeaders(), message);
+    }
+
+    @Benchmark
+    public Object deserializeFileProcessingMessage(RecordSizes sizes) {
+        return deserializer.deserialize(TOPIC, messageHeaders, messageBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeProcessingResult(RecordSizes sizes) {
+        return serializer.serialize(TOPIC, new RecordHeaders(), result);
+    }
+
+    @Benchmark
+    public Object deserializeProcessingResult(RecordSizes sizes) {
+        return deserializer.deserialize(TOPIC, resultHeaders, resultBytes);
+    }
+
+    private static int recordSize(RecordHeaders headers, byte[] value) {
+        int size = value.length;
+        for (Header header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.kafkaUpload.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileProcessingMessage#isImageFile()} over a mix of image and document types,
+ * as called for every file by the workflows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImageClassificationBenchmark {
+
+    private static final String[] FILE_TYPES = {"jpg", "PNG", "pdf", "docx", "webp", "zip", "tiff", "mp4"};
+
+    private FileProcessingMessage[] messages;
+
+    @Setup
+    public void setUp() {
+        messages = new FileProcessingMessage[FILE_TYPES.length];
+        for (int i = 0; i < FILE_TYPES.length; i++) {
+            messages[i] = new FileProcessingMessage();
+            messages[i].setFileType(FILE_TYPES[i]);
+        }
+    }
+
+    /**
+     * Classifies all file types once; divide by the number of types for the cost per call.
+     */
+    @Benchmark
+    public void isImageFile(Blackhole blackhole) {
+        for (FileProcessingMessage message : messages) {
+            blackhole.consume(message.isImageFile());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.kafkaUpload.model;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka value round trips of the pipeline messages through the same JsonSerializer and
+ * JsonDeserializer setup as KafkaConfig, including the type headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerdeBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    private JsonSerializer<Object> serializer;
+    private JsonDeserializer<Object> deserializer;
+    private FileProcessingMessage message;
+    private ProcessingResult result;
+
+    @Setup
+    public void setUp() {
+        serializer = new JsonSerializer<>();
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.example.kafkaUpload.model"), false);
+
+        String fileId = UUID.randomUUID().toString();
+        message = new FileProcessingMessage(fileId, "./test-data/large_image.jpg", "large_image.jpg",
+                "jpg", 2_457_600L, LocalDateTime.now());
+
+        result = new ProcessingResult();
+        result.setFileId(fileId);
+        result.setFilePath(message.getFilePath());
+        result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+        result.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION));
+        result.setStartTime(LocalDateTime.now());
+        result.setEndTime(LocalDateTime.now());
+        result.setProcessingTimeMs(742);
+        result.setRequestCreatedAt(message.getCreatedAt());
+    }
+
+    @Benchmark
+    public Object fileProcessingMessageRoundTrip() {
+        return roundTrip(message);
+    }
+
+    @Benchmark
+    public Object processingResultRoundTrip() {
+        return roundTrip(result);
+    }
+
+    private Object roundTrip(Object value) {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] bytes = serializer.serialize(TOPIC, headers, value);
+        return deserializer.deserialize(TOPIC, headers, bytes);
+    }
+}
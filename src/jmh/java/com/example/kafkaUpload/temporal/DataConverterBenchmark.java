@@ -0,0 +1,142 @@
+package com.example.kafkaUpload.temporal;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import com.example.kafkaUpload.model.ThumbnailResult;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion cost of Temporal payloads with the SDK default converter and the pipeline converter.
+ * The payload bytes one single-file workflow stores in its history, and those of a 50-file batch
+ * workflow input, are reported as secondary results of every benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DataConverterBenchmark {
+
+    @Param({"DEFAULT", "PIPELINE"})
+    private String converterName;
+
+    private DataConverter converter;
+    private FileProcessingMessage message;
+    private ProcessingResult result;
+    private List<FileProcessingMessage> batch;
+    private Optional<Payloads> messagePayloads;
+    private Optional<Payloads> resultPayloads;
+    private Optional<Payloads> batchPayloads;
+    private int historyBytes;
+
+    @Setup
+    public void setUp() {
+        converter = "DEFAULT".equals(converterName)
+                ? DefaultDataConverter.newDefaultInstance()
+                : PipelineDataConverter.newInstance(true, 1024);
+
+        message = message("./test-data/large_image.jpg");
+        result = new ProcessingResult();
+        result.setFileId(message.getFileId());
+        result.setFilePath(message.getFilePath());
+        result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+        result.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION));
+        result.setStartTime(LocalDateTime.now());
+        result.setEndTime(LocalDateTime.now());
+        result.setProcessingTimeMs(742);
+        result.setRequestCreatedAt(message.getCreatedAt());
+        result.setScanStatus(ScanResult.ScanStatus.CLEAN);
+        batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(message("./test-data/file_" + i + ".jpg"));
+        }
+
+        messagePayloads = converter.toPayloads(message);
+        resultPayloads = converter.toPayloads(result);
+        batchPayloads = converter.toPayloads(batch);
+
+        // Activities of the default setup still returned random fileIds
+        String activityFileId = "DEFAULT".equals(converterName) ? UUID.randomUUID().toString() : null;
+        ScanResult scanResult = new ScanResult(activityFileId, ScanResult.ScanStatus.CLEAN, null, "ClamAV-Simulator",
+                LocalDateTime.now(), 1_250, "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        ThumbnailResult thumbnailResult = new ThumbnailResult(activityFileId, message.getFilePath(),
+                "./thumbnails/large_image_small.jpg", ThumbnailResult.ThumbnailStatus.CREATED, 150, 100, 6_144,
+                "jpg", LocalDateTime.now(), 420, null, new ArrayList<>());
+        historyBytes = size(message) + 2 * size(message.getFilePath()) + size(scanResult)
+                + size(thumbnailResult) + 2 * size(result);
+    }
+
+    /**
+     * Payload bytes per workflow, written to results.json as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSizes {
+        public long singleFileHistoryBytes;
+        public long batchInputBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(DataConverterBenchmark benchmark) {
+            singleFileHistoryBytes = benchmark.historyBytes;
+            batchInputBytes = benchmark.batchPayloads.get().getSerializedSize();
+        }
+    }
+
+    @Benchmark
+    public Optional<Payloads> toPayloadsFileProcessingMessage(PayloadSizes sizes) {
+        return converter.toPayloads(message);
+    }
+
+    @Benchmark
+    public FileProcessingMessage fromPayloadsFileProcessingMessage(PayloadSizes sizes) {
+        return converter.fromPayloads(0, messagePayloads, FileProcessingMessage.class, FileProcessingMessage.class);
+    }
+
+    @Benchmark
+    public Optional<Payloads> toPayloadsProcessingResult(PayloadSizes sizes) {
+        return converter.toPayloads(result);
+    }
+
+    @Benchmark
+    public ProcessingResult fromPayloadsProcessingResult(PayloadSizes sizes) {
+        return converter.fromPayloads(0, resultPayloads, ProcessingResult.class, ProcessingResult.class);
+    }
+
+    @Benchmark
+    public Optional<Payloads> toPayloadsBatch(PayloadSizes sizes) {
+        return converter.toPayloads(batch);
+    }
+
+    @Benchmark
+    public Object fromPayloadsBatch(PayloadSizes sizes) {
+        return converter.fromPayloads(0, batchPayloads, List.class, List.class);
+    }
+
+    private int size(Object value) {
+        return converter.toPayloads(value).get().getSerializedSize();
+    }
+
+    private static FileProcessingMessage message(String filePath) {
+        return new FileProcessingMessage(UUID.randomUUID().toString(), filePath,
+                filePath.substring(filePath.lastIndexOf('/') + 1), "jpg", 2_457_600L, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.kafkaUpload.activity;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming SHA-256 checksum engine.
+ * Files are digested through a pool of reusable direct buffers, or through a memory-mapped
+ * channel above a size threshold, so heap usage stays flat regardless of file size.
+ * Digests and their hex output scratch arrays come from a second pool, so that virtual threads,
+ * which each would get fresh thread-local instances, reuse them as well.
+ */
+@Slf4j
+@Component
+public class ChecksumEngine {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int DIGEST_LENGTH = 32;
+
+    private final int bufferSize;
+    private final long mmapThresholdBytes;
+    private final BlockingQueue<ByteBuffer> bufferPool;
+    private final BlockingQueue<Hasher> hasherPool;
+
+    private final LongAdder bytesDigested = new LongAdder();
+    private final LongAdder nanosSpent = new LongAdder();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public ChecksumEngine(
+            @Value("${file-processing.virus-scan.checksum.buffer-size:65536}") int bufferSize,
+            @Value("${file-processing.virus-scan.checksum.buffer-pool-size:32}") int bufferPoolSize,
+            @Value("${file-processing.virus-scan.checksum.mmap-threshold-bytes:1048576}") long mmapThresholdBytes) {
+        this.bufferSize = bufferSize;
+        this.mmapThresholdBytes = mmapThresholdBytes;
+        this.bufferPool = new ArrayBlockingQueue<>(bufferPoolSize);
+        for (int i = 0; i < bufferPoolSize; i++) {
+            bufferPool.offer(ByteBuffer.allocateDirect(bufferSize));
+        }
+        // Filled lazily; at most as many digests are retained as direct buffers
+        this.hasherPool = new ArrayBlockingQueue<>(bufferPoolSize);
+    }
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("scan.checksum.bytes", this, ChecksumEngine::getBytesDigested)
+                .description("Bytes digested by the checksum engine")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("scan.checksum.time", nanosSpent, nanos -> nanos.sum() / 1_000_000_000.0)
+                .description("Time spent digesting files")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("scan.checksum.throughput", this, ChecksumEngine::getThroughputBytesPerSecond)
+                .description("Average digest throughput since startup")
+                .baseUnit("bytes.per.second")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calculates the hex-encoded SHA-256 checksum of a file.
+     *
+     * @param file the file to digest
+     * @return the lower-case hex checksum
+     * @throws IOException if the file cannot be read
+     */
+    public String checksum(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        Hasher hasher = acquireHasher();
+
+        long size;
+        String checksum;
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                size = channel.size();
+                if (mmapThresholdBytes > 0 && size >= mmapThresholdBytes) {
+                    digestMapped(channel, size, hasher.digest);
+                } else {
+                    digestBuffered(channel, hasher.digest);
+                }
+            }
+            checksum = hasher.toHex();
+        } finally {
+            hasherPool.offer(hasher);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        bytesDigested.add(size);
+        nanosSpent.add(elapsedNanos);
+        if (log.isDebugEnabled()) {
+            log.debug("Checksum of {} ({} bytes) took {} µs - {} MB/s",
+                    file, size, elapsedNanos / 1_000, String.format("%.1f", megabytesPerSecond(size, elapsedNanos)));
+        }
+        return checksum;
+    }
+
+    /**
+     * Total number of bytes digested since startup.
+     */
+    public long getBytesDigested() {
+        return bytesDigested.sum();
+    }
+
+    /**
+     * Average digest throughput since startup, in bytes per second.
+     */
+    public double getThroughputBytesPerSecond() {
+        long nanos = nanosSpent.sum();
+        return nanos == 0 ? 0.0 : bytesDigested.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    private void digestBuffered(FileChannel channel, MessageDigest md) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    private void digestMapped(FileChannel channel, long size, MessageDigest md) throws IOException {
+        long position = 0;
+        while (position < size) {
+            long chunk = Math.min(size - position, Integer.MAX_VALUE);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, chunk);
+            md.update(mapped);
+            position += chunk;
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        // Pool exhausted - fall back to a short-lived buffer instead of blocking the scan
+        return buffer != null ? buffer : ByteBuffer.allocate(bufferSize);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            buffer.clear();
+            bufferPool.offer(buffer);
+        }
+    }
+
+    private Hasher acquireHasher() {
+        Hasher hasher = hasherPool.poll();
+        if (hasher == null) {
+            return new Hasher();
+        }
+        // A digest abandoned by a failed read may still hold input
+        hasher.digest.reset();
+        return hasher;
+    }
+
+    /**
+     * A SHA-256 digest with the scratch arrays its hex output is built in.
+     */
+    private static final class Hasher {
+        private final MessageDigest digest = newDigest();
+        private final byte[] digestBytes = new byte[DIGEST_LENGTH];
+        private final char[] hex = new char[DIGEST_LENGTH * 2];
+
+        /**
+         * Completes the digest, which resets it, and returns it hex-encoded.
+         */
+        String toHex() {
+            try {
+                digest.digest(digestBytes, 0, DIGEST_LENGTH);
+            } catch (DigestException e) {
+                throw new IllegalStateException("Failed to complete SHA-256 digest", e);
+            }
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int b = digestBytes[i] & 0xff;
+                hex[i * 2] = HEX_DIGITS[b >>> 4];
+                hex[i * 2 + 1] = HEX_DIGITS[b & 0x0f];
+            }
+            return new String(hex);
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0.0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
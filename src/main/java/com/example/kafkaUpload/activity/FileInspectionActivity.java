@@ -0,0 +1,20 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.model.FileInspection;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+/**
+ * Cheap, size-bounded file checks that workflows run as local activities,
+ * so they do not cost a task queue round trip.
+ */
+@ActivityInterface
+public interface FileInspectionActivity {
+
+    /**
+     * Checks that the file exists and, if it is at most {@code maxInspectedBytes} long,
+     * computes its checksum, detects whether it is a decodable image and looks up a cached scan verdict.
+     */
+    @ActivityMethod
+    FileInspection inspectFile(String filePath, long maxInspectedBytes);
+}
@@ -0,0 +1,83 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.model.FileInspection;
+import com.example.kafkaUpload.model.ScanResult;
+import io.temporal.failure.ApplicationFailure;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+/**
+ * Implementation of the FileInspectionActivity interface.
+ * Files above the size bound are only checked for existence; their checksum is left
+ * to the regular virus scan activity.
+ */
+@Slf4j
+@Component
+public class FileInspectionActivityImpl implements FileInspectionActivity {
+
+    @Autowired
+    private ChecksumEngine checksumEngine;
+
+    @Autowired
+    private ScanVerdictCache scanVerdictCache;
+
+    @Override
+    public FileInspection inspectFile(String filePath, long maxInspectedBytes) {
+        FileInspection inspection = new FileInspection();
+        Path file = Paths.get(filePath);
+
+        try {
+            if (!Files.exists(file)) {
+                return inspection;
+            }
+            inspection.setExists(true);
+            inspection.setSizeBytes(Files.size(file));
+
+            if (inspection.getSizeBytes() > maxInspectedBytes) {
+                log.debug("File exceeds local inspection bound ({} > {} bytes): {}",
+                        inspection.getSizeBytes(), maxInspectedBytes, filePath);
+                return inspection;
+            }
+
+            inspection.setImage(isDecodableImage(file));
+            inspection.setChecksum(checksumEngine.checksum(file));
+
+            ScanVerdictCache.Verdict cached = scanVerdictCache.lookup(inspection.getChecksum());
+            if (cached != null) {
+                inspection.setCachedVerdict(toScanResult(cached, inspection.getChecksum()));
+            }
+            return inspection;
+
+        } catch (IOException e) {
+            throw ApplicationFailure.newFailure(
+                "File inspection failed: " + e.getMessage(),
+                "INSPECTION_ERROR"
+            );
+        }
+    }
+
+    private boolean isDecodableImage(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            return input != null && ImageIO.getImageReaders(input).hasNext();
+        }
+    }
+
+    private ScanResult toScanResult(ScanVerdictCache.Verdict verdict, String checksum) {
+        ScanResult result = new ScanResult();
+        result.setStatus(verdict.status());
+        result.setVirusName(verdict.virusName());
+        result.setScanEngine(verdict.scanEngine());
+        result.setScanTime(LocalDateTime.now());
+        result.setChecksum(checksum);
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+import java.util.List;
+
+@ActivityInterface
+public interface ResultPublishActivity {
+
+    @ActivityMethod
+    void publishResult(ProcessingResult result);
+
+    @ActivityMethod
+    void publishResults(List<ProcessingResult> results);
+}
@@ -0,0 +1,63 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.metrics.PipelineMetrics;
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.temporal.failure.ApplicationFailure;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the ResultPublishActivity interface.
+ * Publishes the final processing result to Kafka from inside the workflow, so that
+ * clients starting workflows never have to wait for completion.
+ */
+@Slf4j
+@Component
+public class ResultPublishActivityImpl implements ResultPublishActivity {
+
+    @Autowired
+    private FileProcessingProducer fileProcessingProducer;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${file-processing.result-publish.timeout-ms:10000}")
+    private long publishTimeoutMs;
+
+    @Override
+    public void publishResult(ProcessingResult result) {
+        publishResults(List.of(result));
+    }
+
+    @Override
+    public void publishResults(List<ProcessingResult> results) {
+        try {
+            // Send everything first so the producer can batch, then wait for all broker acks
+            // so that Temporal retries the activity if any send fails
+            CompletableFuture<?>[] sends = results.stream()
+                    .map(fileProcessingProducer::publishProcessingResult)
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(sends).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+            results.forEach(pipelineMetrics::recordCompletion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ApplicationFailure.newFailure(
+                "Result publication interrupted",
+                "PUBLISH_INTERRUPTED"
+            );
+        } catch (Exception e) {
+            log.error("Failed to publish {} processing result(s)", results.size(), e);
+            throw ApplicationFailure.newFailure(
+                "Result publication failed: " + e.getMessage(),
+                "PUBLISH_ERROR"
+            );
+        }
+    }
+}
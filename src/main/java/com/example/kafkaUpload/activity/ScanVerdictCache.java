@@ -0,0 +1,327 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.model.ScanResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed cache of virus scan verdicts keyed by SHA-256 checksum.
+ * Identical file bytes uploaded under different fileIds are scanned once. Entries are
+ * evicted in LRU order above a size bound and expire after a TTL or as soon as the
+ * configured scan engine version changes. An optional append-only index file lets a
+ * restarted worker start warm; it is rewritten with the live entries on startup and whenever
+ * it holds more than twice as many lines as the cache. A single writer thread appends to and
+ * rewrites the index, so lookups and stores only ever wait for the in-memory map.
+ */
+@Slf4j
+@Component
+public class ScanVerdictCache {
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final int MIN_COMPACTION_LINES = 1024;
+    private static final int INDEX_QUEUE_CAPACITY = 65536;
+    private static final int DRAIN_BATCH = 1024;
+
+    private final boolean enabled;
+    private final long ttlMs;
+    private final String indexPath;
+    private final String scanEngine;
+
+    private final Map<String, Verdict> verdicts;
+    private final Counter hits;
+    private final Counter misses;
+    private final BlockingQueue<IndexEntry> indexQueue = new ArrayBlockingQueue<>(INDEX_QUEUE_CAPACITY);
+    private Path index;
+    private BufferedWriter indexWriter;
+    private long indexLines;
+    private Thread writer;
+    private volatile boolean running;
+
+    /**
+     * A cached scan verdict.
+     */
+    public record Verdict(ScanResult.ScanStatus status, String virusName, String scanEngine, long cachedAtMillis) {
+    }
+
+    private record IndexEntry(String checksum, Verdict verdict) {
+    }
+
+    public ScanVerdictCache(MeterRegistry meterRegistry,
+                            @Value("${file-processing.virus-scan.cache.enabled:true}") boolean enabled,
+                            @Value("${file-processing.virus-scan.cache.max-entries:100000}") int maxEntries,
+                            @Value("${file-processing.virus-scan.cache.ttl-ms:86400000}") long ttlMs,
+                            @Value("${file-processing.virus-scan.cache.index-path:}") String indexPath,
+                            @Value("${file-processing.virus-scan.engine-version:SimulatedAV v1.0}") String scanEngine) {
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.indexPath = indexPath;
+        this.scanEngine = scanEngine;
+        this.verdicts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        hits = Counter.builder("scan.verdict.cache.requests")
+                .tag("result", "hit")
+                .description("Scan verdict cache lookups")
+                .register(meterRegistry);
+        misses = Counter.builder("scan.verdict.cache.requests")
+                .tag("result", "miss")
+                .description("Scan verdict cache lookups")
+                .register(meterRegistry);
+        Gauge.builder("scan.verdict.cache.size", this, ScanVerdictCache::size)
+                .description("Number of cached scan verdicts")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled && !indexPath.isBlank()) {
+            openIndex(Paths.get(indexPath));
+        }
+        if (indexWriter != null) {
+            running = true;
+            writer = new Thread(this::writeLoop, "scan-verdict-index-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Returns the cached verdict for a checksum, or null if there is no live entry.
+     *
+     * @param checksum the SHA-256 checksum of the file
+     * @return the cached verdict or null
+     */
+    public Verdict lookup(String checksum) {
+        if (!enabled) {
+            return null;
+        }
+
+        Verdict verdict;
+        synchronized (this) {
+            verdict = verdicts.get(checksum);
+            if (verdict != null && !isLive(verdict, System.currentTimeMillis())) {
+                verdicts.remove(checksum);
+                verdict = null;
+            }
+        }
+
+        (verdict != null ? hits : misses).increment();
+        return verdict;
+    }
+
+    /**
+     * Caches the verdict of a completed scan. Only content-determined verdicts are cached;
+     * scan failures are always retried.
+     *
+     * @param checksum the SHA-256 checksum of the file
+     * @param result the completed scan result
+     */
+    public void store(String checksum, ScanResult result) {
+        if (!enabled || result.getStatus() == ScanResult.ScanStatus.SCAN_FAILED) {
+            return;
+        }
+
+        Verdict verdict = new Verdict(result.getStatus(), result.getVirusName(), scanEngine, System.currentTimeMillis());
+        synchronized (this) {
+            verdicts.put(checksum, verdict);
+        }
+        // The index only warms restarts, so a verdict is left out of it rather than holding back the scan
+        if (running && !indexQueue.offer(new IndexEntry(checksum, verdict))) {
+            log.debug("Scan verdict cache index queue is full, not indexing {}", checksum);
+        }
+    }
+
+    public synchronized int size() {
+        return verdicts.size();
+    }
+
+    private boolean isLive(Verdict verdict, long now) {
+        return scanEngine.equals(verdict.scanEngine()) && now - verdict.cachedAtMillis() < ttlMs;
+    }
+
+    /**
+     * Replays the index into memory, rewrites it with only the live entries and keeps it open for appends.
+     */
+    private void openIndex(Path index) {
+        this.index = index;
+        try {
+            if (index.getParent() != null) {
+                Files.createDirectories(index.getParent());
+            }
+
+            if (Files.exists(index)) {
+                loadIndex(index);
+                compactIndex(index, verdicts);
+            }
+
+            indexWriter = Files.newBufferedWriter(index, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            indexLines = verdicts.size();
+            log.info("Scan verdict cache index opened at {} with {} live entries", index.toAbsolutePath(), size());
+
+        } catch (IOException e) {
+            log.warn("Failed to open scan verdict cache index at {}, continuing without it: {}", index, e.getMessage());
+            indexWriter = null;
+        }
+    }
+
+    private void loadIndex(Path index) throws IOException {
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                if (fields.length != 5) {
+                    continue;
+                }
+                try {
+                    Verdict verdict = new Verdict(
+                            ScanResult.ScanStatus.valueOf(fields[1]),
+                            fields[4].isEmpty() ? null : fields[4],
+                            fields[2],
+                            Long.parseLong(fields[3]));
+                    if (isLive(verdict, now)) {
+                        verdicts.put(fields[0], verdict);
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.debug("Skipping malformed scan verdict index line: {}", line);
+                }
+            }
+        }
+    }
+
+    private static void compactIndex(Path index, Map<String, Verdict> live) throws IOException {
+        Path compacted = index.resolveSibling(index.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Verdict> entry : live.entrySet()) {
+                writer.write(toIndexLine(entry.getKey(), entry.getValue()));
+            }
+        }
+        Files.move(compacted, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends queued verdicts in batches with one flush each, until the cache is closed and the queue is empty.
+     */
+    private void writeLoop() {
+        List<IndexEntry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !indexQueue.isEmpty()) {
+            try {
+                IndexEntry first = indexQueue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                indexQueue.drainTo(batch, DRAIN_BATCH - 1);
+                if (indexWriter != null) {
+                    appendToIndex(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void appendToIndex(List<IndexEntry> entries) {
+        try {
+            for (IndexEntry entry : entries) {
+                indexWriter.write(toIndexLine(entry.checksum(), entry.verdict()));
+            }
+            indexWriter.flush();
+            indexLines += entries.size();
+        } catch (IOException e) {
+            log.warn("Failed to append to scan verdict cache index: {}", e.getMessage());
+        }
+        // Replaced, evicted and expired verdicts stay in the index until it is rewritten
+        if (indexLines > 2L * Math.max(size(), MIN_COMPACTION_LINES)) {
+            rewriteIndex();
+        }
+    }
+
+    /**
+     * Drops expired verdicts and rewrites the index from a copy of the remaining ones,
+     * so the cache lock is held only for the copy. Verdicts stored after the copy are still
+     * queued and are appended to the rewritten index.
+     */
+    private void rewriteIndex() {
+        Map<String, Verdict> live;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            verdicts.values().removeIf(verdict -> !isLive(verdict, now));
+            live = new LinkedHashMap<>(verdicts);
+        }
+        try {
+            indexWriter.close();
+            compactIndex(index, live);
+            indexWriter = Files.newBufferedWriter(index, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.debug("Scan verdict cache index rewritten from {} to {} lines", indexLines, live.size());
+            indexLines = live.size();
+        } catch (IOException e) {
+            log.warn("Failed to rewrite scan verdict cache index, continuing without it: {}", e.getMessage());
+            indexWriter = null;
+        }
+    }
+
+    private static String toIndexLine(String checksum, Verdict verdict) {
+        return checksum + FIELD_SEPARATOR
+                + verdict.status() + FIELD_SEPARATOR
+                + verdict.scanEngine() + FIELD_SEPARATOR
+                + verdict.cachedAtMillis() + FIELD_SEPARATOR
+                + (verdict.virusName() != null ? verdict.virusName() : "") + "\n";
+    }
+
+    /**
+     * Stops the writer once it has appended every queued verdict, then closes the index.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        if (indexWriter != null) {
+            try {
+                indexWriter.close();
+            } catch (IOException e) {
+                log.warn("Failed to close scan verdict cache index: {}", e.getMessage());
+            }
+            indexWriter = null;
+        }
+    }
+}
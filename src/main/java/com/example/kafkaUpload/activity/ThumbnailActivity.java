@@ -1,12 +1,37 @@
 package com.example.kafkaUpload.activity;
 
+import com.example.kafkaUpload.model.ThumbnailRendition;
 import com.example.kafkaUpload.model.ThumbnailResult;
 import io.temporal.activity.ActivityInterface;
 import io.temporal.activity.ActivityMethod;
 
+import java.util.List;
+
 @ActivityInterface
 public interface ThumbnailActivity {
     
     @ActivityMethod
     ThumbnailResult createThumbnail(String filePath);
+
+    @ActivityMethod
+    ThumbnailResult createRenditions(String filePath, List<ThumbnailRendition> renditions);
+
+    /**
+     * Creates the configured renditions in a staging directory private to {@code stagingKey},
+     * so that speculative output never overwrites thumbnails reported by another workflow.
+     */
+    @ActivityMethod
+    ThumbnailResult createStagedThumbnail(String filePath, String stagingKey);
+
+    /**
+     * Moves staged renditions to their final names and returns the result describing them.
+     */
+    @ActivityMethod
+    ThumbnailResult promoteThumbnails(ThumbnailResult stagedResult);
+
+    /**
+     * Deletes staged renditions. Paths outside the staging directory are left alone.
+     */
+    @ActivityMethod
+    void discardThumbnails(ThumbnailResult thumbnailResult);
 }
\ No newline at end of file
@@ -1,22 +1,30 @@
 package com.example.kafkaUpload.activity;
 
+import com.example.kafkaUpload.metrics.PipelineMetrics;
+import com.example.kafkaUpload.model.ThumbnailRendition;
 import com.example.kafkaUpload.model.ThumbnailResult;
 import io.temporal.failure.ApplicationFailure;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Random;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * Implementation of the ThumbnailActivity interface.
- * This provides stubbed thumbnail creation functionality with configurable failure simulation.
+ * Creates real thumbnails through {@link ThumbnailEngine}, with configurable failure simulation.
  */
 @Slf4j
 @Component
@@ -28,9 +36,6 @@ public class ThumbnailActivityImpl implements ThumbnailActivity {
     @Value("${file-processing.thumbnail.simulation.failure-rate:0.05}")
     private double failureRate;
 
-    @Value("${file-processing.thumbnail.simulation.processing-time-ms:300}")
-    private long processingTimeMs;
-
     @Value("${file-processing.thumbnail.max-width:200}")
     private int maxWidth;
 
@@ -43,15 +48,60 @@ public class ThumbnailActivityImpl implements ThumbnailActivity {
     @Value("${file-processing.thumbnails-directory:./thumbnails}")
     private String thumbnailsDirectory;
 
+    @Value("${file-processing.thumbnail.renditions:}")
+    private String renditionSpecs;
+
+    @Autowired
+    private ThumbnailEngine thumbnailEngine;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Speculative renditions are written below this subdirectory until the scan verdict is known
+    static final String STAGING_DIRECTORY = ".staging";
+
     private final Random random = new Random();
 
+    private List<ThumbnailRendition> configuredRenditions;
+
+    @PostConstruct
+    public void init() {
+        configuredRenditions = parseRenditions(renditionSpecs);
+        log.info("Configured thumbnail renditions: {}", renditionSpecs);
+    }
+
     @Override
     public ThumbnailResult createThumbnail(String filePath) {
-        log.info("Starting thumbnail creation for file: {}", filePath);
+        return createRenditions(filePath, configuredRenditions);
+    }
+
+    @Override
+    public ThumbnailResult createRenditions(String filePath, List<ThumbnailRendition> renditions) {
+        return createRenditions(filePath, renditions, Paths.get(thumbnailsDirectory));
+    }
+
+    @Override
+    public ThumbnailResult createStagedThumbnail(String filePath, String stagingKey) {
+        Path stagingDir = stagingDirectory(stagingKey);
+        ThumbnailResult result = createRenditions(filePath, configuredRenditions, stagingDir);
+        if (!result.isSuccessful()) {
+            deleteStagingDirectory(stagingDir);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the renditions of one file in the given directory.
+     *
+     * @param filePath the source image
+     * @param renditions the renditions to create
+     * @param thumbnailDir the directory the renditions are written to
+     */
+    private ThumbnailResult createRenditions(String filePath, List<ThumbnailRendition> renditions, Path thumbnailDir) {
+        log.info("Starting thumbnail creation for file: {} ({} renditions)", filePath, renditions.size());
         
         long startTime = System.currentTimeMillis();
         ThumbnailResult result = new ThumbnailResult();
-        result.setFileId(UUID.randomUUID().toString());
         result.setOriginalFilePath(filePath);
         result.setCreationTime(LocalDateTime.now());
 
@@ -73,38 +123,74 @@ public class ThumbnailActivityImpl implements ThumbnailActivity {
             }
 
             // Create thumbnails directory if it doesn't exist
-            Path thumbnailDir = Paths.get(thumbnailsDirectory);
             if (!Files.exists(thumbnailDir)) {
                 Files.createDirectories(thumbnailDir);
             }
 
-            // Generate thumbnail path
+            // Generate one thumbnail path per rendition
             String fileName = file.getFileName().toString();
             String nameWithoutExtension = fileName.substring(0, fileName.lastIndexOf('.'));
-            String thumbnailPath = thumbnailDir.resolve(nameWithoutExtension + "_thumb." + thumbnailFormat).toString();
-            result.setThumbnailPath(thumbnailPath);
-
-            // Simulate processing time
-            if (simulationEnabled) {
-                simulateProcessingTime();
+            List<ThumbnailEngine.RenditionTarget> targets = new ArrayList<>(renditions.size());
+            for (ThumbnailRendition rendition : renditions) {
+                String suffix = isPrimary(rendition) ? "_thumb." : "_thumb_" + renditionName(rendition) + ".";
+                Path thumbnailPath = thumbnailDir.resolve(nameWithoutExtension + suffix + thumbnailFormat);
+                targets.add(new ThumbnailEngine.RenditionTarget(thumbnailPath, rendition.getMaxWidth(), rendition.getMaxHeight()));
             }
 
-            // Simulate thumbnail creation
+            // Simulate thumbnail creation failures
             if (simulationEnabled && random.nextDouble() < failureRate) {
                 result.setStatus(ThumbnailResult.ThumbnailStatus.FAILED);
                 result.setErrorMessage("Simulated thumbnail creation failure");
                 log.warn("Thumbnail creation failed for file: {}", filePath);
-            } else {
-                // Simulate successful thumbnail creation
-                createSimulatedThumbnail(thumbnailPath);
-                
+                return result;
+            }
+
+            try {
+                List<ThumbnailEngine.Rendition> created = thumbnailEngine.createRenditions(file, targets, thumbnailFormat);
+
+                for (int i = 0; i < created.size(); i++) {
+                    ThumbnailRendition requested = renditions.get(i);
+                    ThumbnailEngine.Rendition rendition = created.get(i);
+                    result.getRenditions().add(new ThumbnailRendition(
+                            renditionName(requested),
+                            requested.getMaxWidth(),
+                            requested.getMaxHeight(),
+                            rendition.path().toString(),
+                            rendition.width(),
+                            rendition.height(),
+                            rendition.sizeBytes(),
+                            rendition.format()));
+                }
+
+                // The top-level fields describe the primary rendition, or the largest if none matches
+                ThumbnailRendition primary = result.getRenditions().stream()
+                        .filter(this::isPrimary)
+                        .findFirst()
+                        .orElse(result.getRenditions().stream()
+                                .max(Comparator.comparingLong(r -> (long) r.getWidth() * r.getHeight()))
+                                .orElse(null));
+
                 result.setStatus(ThumbnailResult.ThumbnailStatus.CREATED);
-                result.setThumbnailWidth(maxWidth);
-                result.setThumbnailHeight(maxHeight);
-                result.setThumbnailSize(calculateSimulatedSize());
-                result.setThumbnailFormat(thumbnailFormat.toUpperCase());
-                
-                log.info("Thumbnail created successfully for file: {} at: {}", filePath, thumbnailPath);
+                if (primary != null) {
+                    result.setThumbnailPath(primary.getThumbnailPath());
+                    result.setThumbnailWidth(primary.getWidth());
+                    result.setThumbnailHeight(primary.getHeight());
+                    result.setThumbnailSize(primary.getSize());
+                    result.setThumbnailFormat(primary.getFormat());
+                }
+
+                log.info("Thumbnail created successfully for file: {} at: {} ({} renditions)", 
+                        filePath, result.getThumbnailPath(), created.size());
+
+            } catch (ThumbnailEngine.UnsupportedImageException e) {
+                result.setStatus(ThumbnailResult.ThumbnailStatus.SKIPPED_UNSUPPORTED_FORMAT);
+                result.setErrorMessage(e.getMessage());
+                log.info("Image format not supported, skipping thumbnail creation: {}", filePath);
+            } catch (ThumbnailEngine.CorruptImageException e) {
+                // A corrupt image will not decode on retry; report it so the file still completes
+                result.setStatus(ThumbnailResult.ThumbnailStatus.FAILED);
+                result.setErrorMessage(e.getMessage());
+                log.warn("Image cannot be decoded, no thumbnail created: {}", e.getMessage());
             }
 
         } catch (Exception e) {
@@ -118,49 +204,148 @@ public class ThumbnailActivityImpl implements ThumbnailActivity {
         } finally {
             long endTime = System.currentTimeMillis();
             result.setProcessingTimeMs(endTime - startTime);
+            pipelineMetrics.recordThumbnail(result);
         }
 
         return result;
     }
 
-    private boolean isImageFile(String filePath) {
-        String fileName = filePath.toLowerCase();
-        return fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") || 
-               fileName.endsWith(".png") || fileName.endsWith(".gif") || 
-               fileName.endsWith(".bmp") || fileName.endsWith(".tiff") || 
-               fileName.endsWith(".webp");
+    @Override
+    public ThumbnailResult promoteThumbnails(ThumbnailResult stagedResult) {
+        Path thumbnailDir = Paths.get(thumbnailsDirectory);
+        Set<Path> stagingDirs = new LinkedHashSet<>();
+
+        for (ThumbnailRendition rendition : stagedResult.getRenditions()) {
+            if (rendition.getThumbnailPath() == null) {
+                continue;
+            }
+            Path staged = Paths.get(rendition.getThumbnailPath());
+            if (!isStaged(staged)) {
+                continue;
+            }
+            Path target = thumbnailDir.resolve(staged.getFileName());
+            try {
+                // A retried promotion finds the renditions it already moved at their final names
+                if (Files.exists(staged) || !Files.exists(target)) {
+                    Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (Exception e) {
+                throw ApplicationFailure.newFailure(
+                    "Failed to promote thumbnail " + staged + ": " + e.getMessage(),
+                    "THUMBNAIL_PROMOTE_ERROR"
+                );
+            }
+            if (staged.toString().equals(stagedResult.getThumbnailPath())) {
+                stagedResult.setThumbnailPath(target.toString());
+            }
+            rendition.setThumbnailPath(target.toString());
+            stagingDirs.add(staged.getParent());
+        }
+
+        stagingDirs.forEach(this::deleteStagingDirectory);
+        log.info("Promoted {} thumbnail(s) for file: {}", stagedResult.getRenditions().size(), stagedResult.getOriginalFilePath());
+        return stagedResult;
     }
 
-    private void simulateProcessingTime() {
-        try {
-            // Add some randomness to processing time (±50%)
-            long variance = (long) (processingTimeMs * 0.5 * random.nextGaussian());
-            long actualProcessingTime = Math.max(50, processingTimeMs + variance);
-            Thread.sleep(actualProcessingTime);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw ApplicationFailure.newFailure(
-                "Thumbnail creation interrupted",
-                "THUMBNAIL_INTERRUPTED"
-            );
+    @Override
+    public void discardThumbnails(ThumbnailResult thumbnailResult) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (thumbnailResult.getThumbnailPath() != null) {
+            paths.add(thumbnailResult.getThumbnailPath());
+        }
+        for (ThumbnailRendition rendition : thumbnailResult.getRenditions()) {
+            if (rendition.getThumbnailPath() != null) {
+                paths.add(rendition.getThumbnailPath());
+            }
+        }
+
+        Set<Path> stagingDirs = new LinkedHashSet<>();
+        int discarded = 0;
+        for (String path : paths) {
+            Path staged = Paths.get(path);
+            // Final thumbnails may have been reported by another workflow for the same source
+            if (!isStaged(staged)) {
+                log.warn("Not discarding thumbnail outside the staging directory: {}", path);
+                continue;
+            }
+            try {
+                Files.deleteIfExists(staged);
+                stagingDirs.add(staged.getParent());
+                discarded++;
+            } catch (Exception e) {
+                throw ApplicationFailure.newFailure(
+                    "Failed to discard thumbnail " + path + ": " + e.getMessage(),
+                    "THUMBNAIL_DISCARD_ERROR"
+                );
+            }
         }
+
+        stagingDirs.forEach(this::deleteStagingDirectory);
+        log.info("Discarded {} thumbnail(s) for file: {}", discarded, thumbnailResult.getOriginalFilePath());
+    }
+
+    private Path stagingRoot() {
+        return Paths.get(thumbnailsDirectory).resolve(STAGING_DIRECTORY).toAbsolutePath().normalize();
+    }
+
+    private Path stagingDirectory(String stagingKey) {
+        // The key becomes a single path element; anything that could escape the staging root is replaced
+        return Paths.get(thumbnailsDirectory).resolve(STAGING_DIRECTORY)
+                .resolve(stagingKey.replaceAll("[^A-Za-z0-9._-]", "_").replace("..", "_"));
     }
 
-    private void createSimulatedThumbnail(String thumbnailPath) {
+    private boolean isStaged(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        return normalized.startsWith(stagingRoot()) && !normalized.getParent().equals(stagingRoot());
+    }
+
+    private void deleteStagingDirectory(Path directory) {
         try {
-            // Create a simple text file to simulate thumbnail creation
-            String simulatedContent = "Simulated thumbnail created at " + LocalDateTime.now() + 
-                                    "\nOriginal dimensions: " + (maxWidth * 2) + "x" + (maxHeight * 2) +
-                                    "\nThumbnail dimensions: " + maxWidth + "x" + maxHeight;
-            Files.write(Paths.get(thumbnailPath), simulatedContent.getBytes());
-        } catch (IOException e) {
-            log.warn("Failed to create simulated thumbnail file: {}", thumbnailPath, e);
+            Files.deleteIfExists(directory);
+        } catch (Exception e) {
+            log.debug("Staging directory not removed: {} - {}", directory, e.getMessage());
+        }
+    }
+
+    private boolean isPrimary(ThumbnailRendition rendition) {
+        return rendition.getMaxWidth() == maxWidth && rendition.getMaxHeight() == maxHeight;
+    }
+
+    private static String renditionName(ThumbnailRendition rendition) {
+        return rendition.getName() != null && !rendition.getName().isBlank()
+                ? rendition.getName()
+                : rendition.getMaxWidth() + "x" + rendition.getMaxHeight();
+    }
+
+    /**
+     * Parses a comma-separated list of WIDTHxHEIGHT rendition bounds.
+     * The primary max-width/max-height rendition is always included.
+     */
+    private List<ThumbnailRendition> parseRenditions(String specs) {
+        List<ThumbnailRendition> renditions = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            String trimmed = spec.trim().toLowerCase();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] bounds = trimmed.split("x");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Invalid thumbnail rendition: " + spec);
+            }
+            renditions.add(new ThumbnailRendition(trimmed, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1])));
         }
+
+        if (renditions.stream().noneMatch(this::isPrimary)) {
+            renditions.add(new ThumbnailRendition(maxWidth + "x" + maxHeight, maxWidth, maxHeight));
+        }
+        return List.copyOf(renditions);
     }
 
-    private long calculateSimulatedSize() {
-        // Simulate thumbnail size based on format and dimensions
-        double compressionRatio = "jpg".equals(thumbnailFormat) ? 0.8 : 0.9;
-        return (long) (maxWidth * maxHeight * 3 * compressionRatio); // 3 bytes per pixel (RGB)
+    private boolean isImageFile(String filePath) {
+        String fileName = filePath.toLowerCase();
+        return fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") || 
+               fileName.endsWith(".png") || fileName.endsWith(".gif") || 
+               fileName.endsWith(".bmp") || fileName.endsWith(".tiff") || 
+               fileName.endsWith(".webp");
     }
 }
\ No newline at end of file
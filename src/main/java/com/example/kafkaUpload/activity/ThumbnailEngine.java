@@ -0,0 +1,233 @@
+package com.example.kafkaUpload.activity;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ImageIO-based thumbnail engine.
+ * Sources are decoded with subsampling so that only about twice the target resolution is
+ * ever materialized, then reduced by successive halving steps before a final bilinear
+ * step to the exact output size. Multiple renditions share a single decode.
+ */
+@Slf4j
+@Component
+public class ThumbnailEngine {
+
+    /**
+     * A thumbnail written to disk.
+     */
+    public record Rendition(Path path, int width, int height, long sizeBytes, String format) {
+    }
+
+    /**
+     * Thrown when no ImageIO reader can decode the source file.
+     */
+    public static class UnsupportedImageException extends IOException {
+        public UnsupportedImageException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when a reader recognizes the source format but the content cannot be decoded,
+     * for example a truncated or corrupt file. Retrying cannot succeed.
+     */
+    public static class CorruptImageException extends IOException {
+        public CorruptImageException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * A requested rendition: the file to write and the bounds it must fit within.
+     */
+    public record RenditionTarget(Path path, int maxWidth, int maxHeight) {
+    }
+
+    /**
+     * Creates a thumbnail that fits within the given bounds, preserving the aspect ratio.
+     * Images already smaller than the bounds are not upscaled.
+     *
+     * @param source the source image
+     * @param target the thumbnail file to write
+     * @param maxWidth the maximum thumbnail width
+     * @param maxHeight the maximum thumbnail height
+     * @param format the ImageIO output format name, e.g. jpg or png
+     * @return the written rendition
+     * @throws IOException if the source cannot be decoded or the thumbnail cannot be written
+     */
+    public Rendition createThumbnail(Path source, Path target, int maxWidth, int maxHeight, String format)
+            throws IOException {
+        return createRenditions(source, List.of(new RenditionTarget(target, maxWidth, maxHeight)), format).get(0);
+    }
+
+    /**
+     * Creates several renditions from a single decode of the source. The source is decoded
+     * once for the largest bounds; each rendition is sized against the decoded image and
+     * derived from the previous rendition only when that one still covers its size.
+     *
+     * @param source the source image
+     * @param targets the renditions to create
+     * @param format the ImageIO output format name, e.g. jpg or png
+     * @return the written renditions, in the order of {@code targets}
+     * @throws UnsupportedImageException if no reader recognizes the source
+     * @throws CorruptImageException if the source is recognized but cannot be decoded
+     * @throws IOException if a rendition cannot be written
+     */
+    public List<Rendition> createRenditions(Path source, List<RenditionTarget> targets, String format)
+            throws IOException {
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> largestFirst = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            largestFirst.add(i);
+        }
+        largestFirst.sort(Comparator.comparingLong(
+                (Integer i) -> (long) targets.get(i).maxWidth() * targets.get(i).maxHeight()).reversed());
+
+        int decodeWidth = targets.stream().mapToInt(RenditionTarget::maxWidth).max().getAsInt();
+        int decodeHeight = targets.stream().mapToInt(RenditionTarget::maxHeight).max().getAsInt();
+
+        long startNanos = System.nanoTime();
+        BufferedImage decoded = decodeSubsampled(source, decodeWidth, decodeHeight);
+        long decodedNanos = System.nanoTime();
+        int decodedWidth = decoded.getWidth();
+        int decodedHeight = decoded.getHeight();
+
+        Rendition[] renditions = new Rendition[targets.size()];
+        BufferedImage previous = null;
+        for (int index : largestFirst) {
+            RenditionTarget target = targets.get(index);
+            double scale = fitScale(decodedWidth, decodedHeight, target.maxWidth(), target.maxHeight());
+            int width = Math.max(1, (int) Math.round(decodedWidth * scale));
+            int height = Math.max(1, (int) Math.round(decodedHeight * scale));
+            // Ordering by area does not order by both sides: a wide, short box can come before a
+            // square one, so only reuse the previous rendition when it is large enough on both axes
+            BufferedImage base = previous != null && previous.getWidth() >= width && previous.getHeight() >= height
+                    ? previous : decoded;
+            previous = scaleTo(base, width, height, format);
+            renditions[index] = write(previous, target.path(), format);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("{} rendition(s) for {} - decode {} µs at {}x{}, scale+encode {} µs",
+                    targets.size(), source,
+                    (decodedNanos - startNanos) / 1_000, decodedWidth, decodedHeight,
+                    (System.nanoTime() - decodedNanos) / 1_000);
+        }
+        return List.of(renditions);
+    }
+
+    /**
+     * Decodes the first image of the source with the largest subsampling factor that still
+     * leaves at least twice the target resolution for the downscaling steps.
+     */
+    BufferedImage decodeSubsampled(Path source, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new UnsupportedImageException("Cannot open image stream for " + source);
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new UnsupportedImageException("No image reader available for " + source);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFactor(sourceWidth, sourceHeight, maxWidth, maxHeight);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                // Decoders report broken content as IIOException or as unchecked errors from their internals
+                throw new CorruptImageException("Cannot decode image " + source + ": " + e.getMessage(), e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down to fit within the bounds by halving until within a factor of two,
+     * then performing one final bilinear step.
+     */
+    BufferedImage scaleToFit(BufferedImage image, int maxWidth, int maxHeight, String format) {
+        double scale = fitScale(image.getWidth(), image.getHeight(), maxWidth, maxHeight);
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        return scaleTo(image, targetWidth, targetHeight, format);
+    }
+
+    private BufferedImage scaleTo(BufferedImage image, int targetWidth, int targetHeight, String format) {
+        int imageType = supportsAlpha(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2, imageType);
+        }
+
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight || current.getType() != imageType) {
+            current = resize(current, targetWidth, targetHeight, imageType);
+        }
+        return current;
+    }
+
+    private Rendition write(BufferedImage thumbnail, Path target, String format) throws IOException {
+        if (!ImageIO.write(thumbnail, format, target.toFile())) {
+            throw new IOException("No image writer available for format: " + format);
+        }
+        return new Rendition(target, thumbnail.getWidth(), thumbnail.getHeight(), Files.size(target), format.toUpperCase());
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height, int imageType) {
+        BufferedImage resized = new BufferedImage(width, height, imageType);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static double fitScale(int width, int height, int maxWidth, int maxHeight) {
+        return Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+    }
+
+    static int subsamplingFactor(int sourceWidth, int sourceHeight, int maxWidth, int maxHeight) {
+        // Fit scale of the final thumbnail; keep twice the target resolution after subsampling
+        double scale = Math.min((double) maxWidth / sourceWidth, (double) maxHeight / sourceHeight);
+        return scale >= 0.5 ? 1 : (int) Math.floor(1.0 / (2.0 * scale));
+    }
+
+    private static boolean supportsAlpha(String format) {
+        String lower = format.toLowerCase();
+        return lower.equals("png") || lower.equals("gif") || lower.equals("tiff") || lower.equals("tif");
+    }
+}
@@ -9,4 +9,10 @@ public interface VirusScanActivity {
     
     @ActivityMethod
     ScanResult scanFile(String filePath);
+
+    /**
+     * Scans a file whose checksum was already computed, e.g. by a local inspection activity.
+     */
+    @ActivityMethod
+    ScanResult scanFileWithChecksum(String filePath, String checksum);
 }
\ No newline at end of file
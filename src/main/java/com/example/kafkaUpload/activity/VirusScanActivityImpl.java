@@ -1,18 +1,18 @@
 package com.example.kafkaUpload.activity;
 
+import com.example.kafkaUpload.metrics.PipelineMetrics;
 import com.example.kafkaUpload.model.ScanResult;
 import io.temporal.failure.ApplicationFailure;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.Random;
-import java.util.UUID;
 
 /**
  * Implementation of the VirusScanActivity interface.
@@ -22,6 +22,8 @@ import java.util.UUID;
 @Component
 public class VirusScanActivityImpl implements VirusScanActivity {
 
+    private static final String CHECKSUM_UNAVAILABLE = "checksum_unavailable";
+
     @Value("${file-processing.virus-scan.simulation.enabled:true}")
     private boolean simulationEnabled;
 
@@ -31,17 +33,33 @@ public class VirusScanActivityImpl implements VirusScanActivity {
     @Value("${file-processing.virus-scan.simulation.processing-time-ms:500}")
     private long processingTimeMs;
 
+    @Value("${file-processing.virus-scan.engine-version:SimulatedAV v1.0}")
+    private String scanEngine;
+
+    @Autowired
+    private ChecksumEngine checksumEngine;
+
+    @Autowired
+    private ScanVerdictCache scanVerdictCache;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
     private final Random random = new Random();
 
     @Override
     public ScanResult scanFile(String filePath) {
+        return scanFileWithChecksum(filePath, null);
+    }
+
+    @Override
+    public ScanResult scanFileWithChecksum(String filePath, String knownChecksum) {
         log.info("Starting virus scan for file: {}", filePath);
         
         long startTime = System.currentTimeMillis();
         ScanResult result = new ScanResult();
-        result.setFileId(UUID.randomUUID().toString());
         result.setScanTime(LocalDateTime.now());
-        result.setScanEngine("SimulatedAV v1.0");
+        result.setScanEngine(scanEngine);
 
         try {
             // Verify file exists
@@ -53,8 +71,18 @@ public class VirusScanActivityImpl implements VirusScanActivity {
                 );
             }
 
-            // Calculate file checksum
-            result.setChecksum(calculateChecksum(file));
+            // Calculate file checksum unless the caller already has it
+            String checksum = knownChecksum != null ? knownChecksum : calculateChecksum(file);
+            result.setChecksum(checksum);
+
+            // Identical content was already scanned under another fileId
+            ScanVerdictCache.Verdict cached = isCacheable(checksum) ? scanVerdictCache.lookup(checksum) : null;
+            if (cached != null) {
+                result.setStatus(cached.status());
+                result.setVirusName(cached.virusName());
+                log.info("Virus scan verdict served from cache for file: {} - Status: {}", filePath, cached.status());
+                return result;
+            }
 
             // Simulate processing time
             if (simulationEnabled) {
@@ -79,6 +107,11 @@ public class VirusScanActivityImpl implements VirusScanActivity {
                 log.info("Virus scan completed successfully for file: {}", filePath);
             }
 
+            // Simulated verdicts are random, so caching them would pin a file to INFECTED or CORRUPTED
+            if (!simulationEnabled && isCacheable(checksum)) {
+                scanVerdictCache.store(checksum, result);
+            }
+
         } catch (Exception e) {
             log.error("Error during virus scan for file: {}", filePath, e);
             result.setStatus(ScanResult.ScanStatus.SCAN_FAILED);
@@ -89,6 +122,7 @@ public class VirusScanActivityImpl implements VirusScanActivity {
         } finally {
             long endTime = System.currentTimeMillis();
             result.setScanDurationMs(endTime - startTime);
+            pipelineMetrics.recordScan(result);
         }
 
         return result;
@@ -109,19 +143,16 @@ public class VirusScanActivityImpl implements VirusScanActivity {
         }
     }
 
+    private boolean isCacheable(String checksum) {
+        return !CHECKSUM_UNAVAILABLE.equals(checksum);
+    }
+
     private String calculateChecksum(Path file) {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] fileBytes = Files.readAllBytes(file);
-            byte[] digest = md.digest(fileBytes);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            return checksumEngine.checksum(file);
         } catch (Exception e) {
             log.warn("Failed to calculate checksum for file: {}", file, e);
-            return "checksum_unavailable";
+            return CHECKSUM_UNAVAILABLE;
         }
     }
 }
\ No newline at end of file
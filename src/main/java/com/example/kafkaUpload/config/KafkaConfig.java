@@ -1,11 +1,17 @@
 package com.example.kafkaUpload.config;
 
+import com.example.kafkaUpload.kafka.PayloadDeserializer;
+import com.example.kafkaUpload.kafka.PayloadFormat;
+import com.example.kafkaUpload.kafka.PayloadSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,15 +20,22 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Configuration
 @EnableKafka
 public class KafkaConfig {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
@@ -32,12 +45,37 @@ public class KafkaConfig {
     @Value("${kafka.topic.processing-results:processing-results}")
     private String processingResultsTopic;
 
+    @Value("${kafka.topic.file-processing-dlt:file-processing-requests-dlt}")
+    private String fileProcessingDltTopic;
+
+    @Value("${kafka.producer.payload-format:JSON}")
+    private PayloadFormat payloadFormat;
+
+    @Value("${kafka.consumer.max-poll-records:10}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${kafka.consumer.batch.fetch-min-bytes:1}")
+    private int batchFetchMinBytes;
+
+    @Value("${kafka.consumer.batch.fetch-max-wait-ms:500}")
+    private int batchFetchMaxWaitMs;
+
+    @Value("${kafka.consumer.batch.concurrency:16}")
+    private int batchStartConcurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
         configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         KafkaAdmin admin = new KafkaAdmin(configs);
         admin.setFatalIfBrokerNotAvailable(false); // Don't fail if broker isn't ready
+        admin.setModifyTopicConfigs(true); // Apply changed topic configs, such as compaction, to existing topics
         return admin;
     }
 
@@ -46,9 +84,23 @@ public class KafkaConfig {
         return new NewTopic(fileProcessingTopic, 3, (short) 1);
     }
 
+    /**
+     * Keyed by fileId and compacted, so the latest result of every file stays readable and
+     * {@code ProcessingStatusStore} can rebuild from it.
+     */
     @Bean
     public NewTopic processingResultsTopic() {
-        return new NewTopic(processingResultsTopic, 3, (short) 1);
+        return new NewTopic(processingResultsTopic, 3, (short) 1)
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+    }
+
+    /**
+     * Dead-letter topic of file processing requests. The record listener's retry topics are
+     * created by {@code @RetryableTopic}; the batch listener publishes here directly.
+     */
+    @Bean
+    public NewTopic fileProcessingDltTopic() {
+        return new NewTopic(fileProcessingDltTopic, 3, (short) 1);
     }
 
     // Producer Configuration
@@ -57,33 +109,52 @@ public class KafkaConfig {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PayloadSerializer.class);
+        configProps.put(PayloadFormat.CONFIG, payloadFormat.name());
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
         configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        // Injects the current trace context as a record header
+        template.setObservationEnabled(true);
+        return template;
     }
 
     // Consumer Configuration
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        return withClientMetrics(new DefaultKafkaConsumerFactory<>(consumerConfigs(maxPollRecords)));
+    }
+
+    /**
+     * Binds the Kafka client metrics of every consumer, including records-lag, to the meter registry.
+     */
+    private ConsumerFactory<String, Object> withClientMetrics(DefaultKafkaConsumerFactory<String, Object> factory) {
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    private Map<String, Object> consumerConfigs(int maxPollRecords) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "file-processors");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // Reads JSON and compact records alike, so producers can switch formats one at a time
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, PayloadDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.example.kafkaUpload.model");
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return configProps;
     }
 
     @Bean
@@ -92,6 +163,59 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3); // Number of consumer threads
         factory.getContainerProperties().setAckMode(org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // Continues the trace from the record header; batch listeners extract it per record themselves
+        factory.getContainerProperties().setObservationEnabled(true);
+        configureListenerThreads(factory);
+        return factory;
+    }
+
+    // Batch Consumer Configuration
+    @Bean
+    public ConsumerFactory<String, Object> batchConsumerFactory() {
+        Map<String, Object> configProps = consumerConfigs(batchMaxPollRecords);
+        // A poll returns once fetch-min-bytes are available or fetch-max-wait-ms has elapsed
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batchFetchMinBytes);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, batchFetchMaxWaitMs);
+        return withClientMetrics(new DefaultKafkaConsumerFactory<>(configProps));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3); // Number of consumer threads
+        factory.setBatchListener(true);
+        // One commit per poll, issued by the listener once the whole batch is handled
+        factory.getContainerProperties().setAckMode(org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL);
+        configureListenerThreads(factory);
         return factory;
     }
+
+    /**
+     * Runs the consumer threads of the factory's containers on virtual threads when enabled.
+     */
+    private void configureListenerThreads(ConcurrentKafkaListenerContainerFactory<String, Object> factory) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            listenerExecutor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(listenerExecutor);
+        }
+    }
+
+    /**
+     * Executor used by the batch listener to start the workflows of one poll concurrently.
+     */
+    @Bean
+    public Executor workflowStartExecutor() {
+        if (virtualThreads) {
+            // One virtual thread per start, still bounded so a poll cannot flood the Temporal frontend
+            log.info("Creating virtual-thread workflow start executor with concurrency limit {}", batchStartConcurrency);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("workflow-start-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(batchStartConcurrency);
+            return executor;
+        }
+        log.info("Creating workflow start executor with {} threads", batchStartConcurrency);
+        return Executors.newFixedThreadPool(batchStartConcurrency, new CustomizableThreadFactory("workflow-start-"));
+    }
 }
\ No newline at end of file
@@ -1,17 +1,33 @@
 package com.example.kafkaUpload.config;
 
+import com.example.kafkaUpload.activity.FileInspectionActivityImpl;
+import com.example.kafkaUpload.activity.ResultPublishActivityImpl;
 import com.example.kafkaUpload.activity.ThumbnailActivityImpl;
 import com.example.kafkaUpload.activity.VirusScanActivityImpl;
+import com.example.kafkaUpload.temporal.PipelineDataConverter;
+import com.example.kafkaUpload.tracing.TraceContextPropagator;
+import com.example.kafkaUpload.tracing.TracingWorkerInterceptor;
+import com.example.kafkaUpload.workflow.FileBatchProcessingWorkflow;
+import com.example.kafkaUpload.workflow.FileBatchProcessingWorkflowImpl;
+import com.example.kafkaUpload.workflow.FileProcessingWorkflow;
 import com.example.kafkaUpload.workflow.FileProcessingWorkflowImpl;
+import com.example.kafkaUpload.workflow.FileProcessingWorkflowOptions;
+import com.uber.m3.tally.RootScopeBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -20,6 +36,8 @@ import jakarta.annotation.PreDestroy;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 
+import java.util.List;
+
 
 /**
  * Configuration class for Temporal workflow engine.
@@ -28,6 +46,7 @@ import org.springframework.context.event.EventListener;
 @Slf4j
 @Configuration
 @Profile("!kafka-only")
+@EnableConfigurationProperties(TemporalWorkerProperties.class)
 public class TemporalConfig {
 
     @Value("${temporal.target:127.0.0.1:7233}")
@@ -39,6 +58,39 @@ public class TemporalConfig {
     @Value("${temporal.task-queue:file-processing-queue}")
     private String taskQueue;
 
+    @Value("${temporal.workflow.speculative-thumbnails:false}")
+    private boolean speculativeThumbnails;
+
+    @Value("${temporal.workflow.batch.parallelism:10}")
+    private int batchParallelism;
+
+    @Value("${temporal.workflow.local-inspection.enabled:false}")
+    private boolean localInspection;
+
+    @Value("${temporal.workflow.local-inspection.max-file-bytes:1048576}")
+    private long localInspectionMaxBytes;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${temporal.data-converter.compact-encoding:false}")
+    private boolean compactEncoding;
+
+    @Value("${temporal.data-converter.compression-threshold-bytes:-1}")
+    private int compressionThresholdBytes;
+
+    @Autowired
+    private TemporalWorkerProperties workerProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TraceContextPropagator traceContextPropagator;
+
+    @Autowired
+    private TracingWorkerInterceptor tracingWorkerInterceptor;
+
     private WorkerFactory workerFactory;
     private Worker worker;
     private WorkflowClient workflowClient;
@@ -49,6 +101,10 @@ public class TemporalConfig {
             return WorkflowServiceStubs.newServiceStubs(
                 WorkflowServiceStubsOptions.newBuilder()
                     .setTarget(temporalTarget)
+                    // SDK metrics such as schedule-to-start latency (task queue wait) and free worker slots
+                    .setMetricsScope(new RootScopeBuilder()
+                            .reporter(new MicrometerClientStatsReporter(meterRegistry))
+                            .reportEvery(com.uber.m3.util.Duration.ofSeconds(10)))
                     .build()
             );
         } catch (Exception e) {
@@ -57,12 +113,24 @@ public class TemporalConfig {
         }
     }
 
+    /**
+     * Converts workflow and activity payloads, all of which are stored in workflow history.
+     */
     @Bean
-    public WorkflowClient workflowClient(WorkflowServiceStubs workflowServiceStubs) {
+    public DataConverter dataConverter() {
+        log.info("Temporal payloads: compact encoding {}, deflate {}", compactEncoding ? "on" : "off",
+                compressionThresholdBytes < 0 ? "off" : "from " + compressionThresholdBytes + " bytes");
+        return PipelineDataConverter.newInstance(compactEncoding, compressionThresholdBytes);
+    }
+
+    @Bean
+    public WorkflowClient workflowClient(WorkflowServiceStubs workflowServiceStubs, DataConverter dataConverter) {
         this.workflowClient = WorkflowClient.newInstance(
             workflowServiceStubs,
             WorkflowClientOptions.newBuilder()
                 .setNamespace(temporalNamespace)
+                .setContextPropagators(List.of(traceContextPropagator))
+                .setDataConverter(dataConverter)
                 .build()
         );
         return this.workflowClient;
@@ -70,26 +138,50 @@ public class TemporalConfig {
 
     @Bean
     public WorkerFactory workerFactory(WorkflowClient workflowClient) {
-        this.workerFactory = WorkerFactory.newInstance(workflowClient);
+        WorkerFactoryOptions factoryOptions = WorkerFactoryOptions.newBuilder()
+                .setWorkflowCacheSize(workerProperties.getWorkflowCacheSize())
+                .setMaxWorkflowThreadCount(workerProperties.getMaxWorkflowThreadCount())
+                .setWorkerInterceptors(tracingWorkerInterceptor)
+                .build();
+        this.workerFactory = WorkerFactory.newInstance(workflowClient, factoryOptions);
         return this.workerFactory;
     }
 
     @Bean
     public Worker worker(WorkerFactory workerFactory, 
                         VirusScanActivityImpl virusScanActivity,
-                        ThumbnailActivityImpl thumbnailActivity) {
+                        ThumbnailActivityImpl thumbnailActivity,
+                        ResultPublishActivityImpl resultPublishActivity,
+                        FileInspectionActivityImpl fileInspectionActivity) {
         log.info("Creating Temporal worker for task queue: {}", taskQueue);
-        Worker worker = workerFactory.newWorker(taskQueue);
+        Worker worker = workerFactory.newWorker(taskQueue, workerOptions(workerProperties.getMain()));
         
         // Register workflow implementations
-        worker.registerWorkflowImplementationTypes(FileProcessingWorkflowImpl.class);
-        log.info("Registered workflow implementation: {}", FileProcessingWorkflowImpl.class.getSimpleName());
+        FileProcessingWorkflowOptions workflowOptions = new FileProcessingWorkflowOptions(
+                speculativeThumbnails, batchParallelism, localInspection, localInspectionMaxBytes,
+                dedicatedTaskQueue(workerProperties.getScan()),
+                dedicatedTaskQueue(workerProperties.getThumbnail()));
+        worker.registerWorkflowImplementationFactory(FileProcessingWorkflow.class,
+                () -> new FileProcessingWorkflowImpl(workflowOptions));
+        worker.registerWorkflowImplementationFactory(FileBatchProcessingWorkflow.class,
+                () -> new FileBatchProcessingWorkflowImpl(workflowOptions));
+        log.info("Registered workflow implementations: {}, {} with {}", 
+                FileProcessingWorkflowImpl.class.getSimpleName(),
+                FileBatchProcessingWorkflowImpl.class.getSimpleName(),
+                workflowOptions);
         
         // Register activity implementations
-        worker.registerActivitiesImplementations(virusScanActivity, thumbnailActivity);
-        log.info("Registered activity implementations: {}, {}", 
+        worker.registerActivitiesImplementations(
+                virusScanActivity, thumbnailActivity, resultPublishActivity, fileInspectionActivity);
+        log.info("Registered activity implementations: {}, {}, {}, {}", 
                 virusScanActivity.getClass().getSimpleName(), 
-                thumbnailActivity.getClass().getSimpleName());
+                thumbnailActivity.getClass().getSimpleName(),
+                resultPublishActivity.getClass().getSimpleName(),
+                fileInspectionActivity.getClass().getSimpleName());
+
+        // Dedicated workers isolate scan and thumbnail capacity from each other
+        registerDedicatedWorker(workerFactory, "scan", workerProperties.getScan(), virusScanActivity);
+        registerDedicatedWorker(workerFactory, "thumbnail", workerProperties.getThumbnail(), thumbnailActivity);
         
         // Store references for lifecycle management
         this.workerFactory = workerFactory;
@@ -98,6 +190,45 @@ public class TemporalConfig {
         return worker;
     }
 
+    /**
+     * Creates a worker that serves only the given activity on its own task queue,
+     * if a task queue is configured for it.
+     */
+    private void registerDedicatedWorker(WorkerFactory workerFactory, String name,
+                                         TemporalWorkerProperties.QueueWorker settings, Object activity) {
+        if (!settings.isDedicated()) {
+            return;
+        }
+        Worker dedicatedWorker = workerFactory.newWorker(settings.getTaskQueue(), workerOptions(settings));
+        dedicatedWorker.registerActivitiesImplementations(activity);
+        log.info("Registered {} worker for {} on task queue: {} ({} slots, {} activities/s)",
+                name, activity.getClass().getSimpleName(), settings.getTaskQueue(),
+                settings.getMaxConcurrentActivities(), settings.getActivitiesPerSecond());
+    }
+
+    private String dedicatedTaskQueue(TemporalWorkerProperties.QueueWorker settings) {
+        return settings.isDedicated() ? settings.getTaskQueue() : null;
+    }
+
+    private WorkerOptions workerOptions(TemporalWorkerProperties.QueueWorker settings) {
+        WorkerOptions.Builder builder = WorkerOptions.newBuilder()
+                .setMaxConcurrentActivityExecutionSize(settings.getMaxConcurrentActivities())
+                .setMaxConcurrentWorkflowTaskExecutionSize(settings.getMaxConcurrentWorkflowTasks())
+                .setMaxConcurrentLocalActivityExecutionSize(settings.getMaxConcurrentLocalActivities())
+                .setMaxConcurrentActivityTaskPollers(settings.getActivityPollers())
+                .setMaxConcurrentWorkflowTaskPollers(settings.getWorkflowTaskPollers())
+                // Pollers and activity executors on virtual threads (Java 21+); slots still bound in-flight activities
+                .setUsingVirtualThreads(virtualThreads);
+        // Zero leaves the SDK default of no limit
+        if (settings.getActivitiesPerSecond() > 0) {
+            builder.setMaxTaskQueueActivitiesPerSecond(settings.getActivitiesPerSecond());
+        }
+        if (settings.getWorkerActivitiesPerSecond() > 0) {
+            builder.setMaxWorkerActivitiesPerSecond(settings.getWorkerActivitiesPerSecond());
+        }
+        return builder.build();
+    }
+
     @EventListener(ApplicationReadyEvent.class)
     public void startWorker() {
         log.info("ApplicationReadyEvent received - attempting to start Temporal worker");
@@ -0,0 +1,65 @@
+package com.example.kafkaUpload.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Capacity settings of the Temporal workers, bound from {@code temporal.worker.*}.
+ * The main worker serves workflows and every activity on {@code temporal.task-queue}.
+ * Scan and thumbnail activities can additionally be routed to their own task queues,
+ * each served by a dedicated worker with independent slots and rate limits.
+ * Defaults match the SDK defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "temporal.worker")
+public class TemporalWorkerProperties {
+
+    /**
+     * Number of workflow executions kept in the sticky cache of this host.
+     */
+    private int workflowCacheSize = 600;
+
+    /**
+     * Maximum number of threads running cached workflow executions.
+     */
+    private int maxWorkflowThreadCount = 600;
+
+    private QueueWorker main = new QueueWorker();
+
+    private QueueWorker scan = new QueueWorker();
+
+    private QueueWorker thumbnail = new QueueWorker();
+
+    @Data
+    public static class QueueWorker {
+        /**
+         * Task queue of a dedicated worker; blank means the activities stay on the main task queue.
+         * Ignored for the main worker.
+         */
+        private String taskQueue;
+
+        private int maxConcurrentActivities = 200;
+
+        private int maxConcurrentWorkflowTasks = 200;
+
+        private int maxConcurrentLocalActivities = 200;
+
+        private int activityPollers = 5;
+
+        private int workflowTaskPollers = 5;
+
+        /**
+         * Activities per second across all workers of the task queue, enforced by the server; 0 means unlimited.
+         */
+        private double activitiesPerSecond;
+
+        /**
+         * Activities per second started by this worker; 0 means unlimited.
+         */
+        private double workerActivitiesPerSecond;
+
+        public boolean isDedicated() {
+            return taskQueue != null && !taskQueue.isBlank();
+        }
+    }
+}
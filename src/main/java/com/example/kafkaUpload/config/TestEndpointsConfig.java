@@ -0,0 +1,36 @@
+package com.example.kafkaUpload.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Switch for the load generation and diagnostic endpoints under {@code /api/file-processing/test}.
+ * With {@code file-processing.test-endpoints.enabled=false} they answer 404, so production
+ * deployments cannot start load tests or thread probes.
+ */
+@Configuration
+public class TestEndpointsConfig implements WebMvcConfigurer {
+
+    @Value("${file-processing.test-endpoints.enabled:true}")
+    private boolean testEndpointsEnabled;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (testEndpointsEnabled) {
+                    return true;
+                }
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return false;
+            }
+        }).addPathPatterns("/api/file-processing/test/**");
+    }
+}
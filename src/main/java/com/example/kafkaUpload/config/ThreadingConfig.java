@@ -0,0 +1,73 @@
+package com.example.kafkaUpload.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executors for blocking application work outside of Kafka and Temporal.
+ * With {@code spring.threads.virtual.enabled} (Java 21+) every task runs on its own virtual
+ * thread, so the number of files in flight is no longer capped by platform threads.
+ * Otherwise the previous platform-thread executors are used.
+ * <p>
+ * Spring Boot backs off its application task executor as soon as any {@code Executor} bean exists,
+ * which would leave Spring MVC async requests on an unbounded executor; they get their own here.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig implements WebMvcConfigurer {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${file-processing.bulk.max-concurrent-requests:16}")
+    private int maxConcurrentAsyncRequests;
+
+    /**
+     * Executor for blocking work of {@code FileProcessingService} and the test data generator.
+     */
+    @Bean
+    public AsyncTaskExecutor fileProcessingExecutor() {
+        if (virtualThreads) {
+            log.info("Using virtual threads for file processing tasks");
+            return new VirtualThreadTaskExecutor("file-processing-");
+        }
+        return new TaskExecutorAdapter(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executor for Spring MVC async request processing, such as the streamed /process/bulk response.
+     * Bounded to max-concurrent-requests; platform-thread requests beyond that and a queue of the
+     * same size are rejected.
+     */
+    @Bean
+    public AsyncTaskExecutor mvcAsyncExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrentAsyncRequests);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(maxConcurrentAsyncRequests);
+        executor.setMaxPoolSize(maxConcurrentAsyncRequests);
+        executor.setQueueCapacity(maxConcurrentAsyncRequests);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+}
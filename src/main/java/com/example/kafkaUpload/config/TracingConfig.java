@@ -0,0 +1,42 @@
+package com.example.kafkaUpload.config;
+
+import com.example.kafkaUpload.tracing.RecordingSpanExporter;
+import com.example.kafkaUpload.tracing.TraceContextPropagator;
+import com.example.kafkaUpload.tracing.TracingWorkerInterceptor;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracing across Kafka and Temporal.
+ * HTTP and Kafka spans come from Spring observation; the beans here carry the trace
+ * context through Temporal headers and add spans for task queue waits and activities.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Value("${tracing.in-memory-exporter.max-spans:10000}")
+    private int inMemoryMaxSpans;
+
+    @Bean
+    public TraceContextPropagator traceContextPropagator(Tracer tracer, Propagator propagator) {
+        return new TraceContextPropagator(tracer, propagator);
+    }
+
+    @Bean
+    public TracingWorkerInterceptor tracingWorkerInterceptor(Tracer tracer, Propagator propagator) {
+        return new TracingWorkerInterceptor(tracer, propagator);
+    }
+
+    /**
+     * In-process span exporter; picked up by the OpenTelemetry auto-configuration like any other exporter.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.in-memory-exporter.enabled", havingValue = "true")
+    public RecordingSpanExporter recordingSpanExporter() {
+        return new RecordingSpanExporter(inMemoryMaxSpans);
+    }
+}
@@ -1,14 +1,31 @@
 package com.example.kafkaUpload.controller;
 
+import com.example.kafkaUpload.kafka.DeadLetterReplayService;
+import com.example.kafkaUpload.ledger.ProcessingLedger;
+import com.example.kafkaUpload.loadtest.LoadGenerator;
+import com.example.kafkaUpload.loadtest.LoadProfile;
+import com.example.kafkaUpload.loadtest.LoadTestPlan;
 import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.service.BulkSubmissionService;
 import com.example.kafkaUpload.service.FileProcessingService;
 import com.example.kafkaUpload.service.TestDataGeneratorService;
+import com.example.kafkaUpload.service.ThreadCapacityProbe;
+import com.example.kafkaUpload.status.FileStatus;
+import com.example.kafkaUpload.status.ProcessingStatusStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -21,12 +38,32 @@ import java.util.concurrent.CompletableFuture;
 @RequestMapping("/api/file-processing")
 public class FileProcessingController {
 
+    private static final int MAX_STATUS_BATCH = 1000;
+
     @Autowired
     private FileProcessingService fileProcessingService;
 
     @Autowired
     private TestDataGeneratorService testDataGeneratorService;
 
+    @Autowired
+    private ThreadCapacityProbe threadCapacityProbe;
+
+    @Autowired
+    private LoadGenerator loadGenerator;
+
+    @Autowired
+    private BulkSubmissionService bulkSubmissionService;
+
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @Autowired
+    private ProcessingStatusStore processingStatusStore;
+
+    @Autowired
+    private ProcessingLedger processingLedger;
+
     /**
      * Health check endpoint.
      */
@@ -69,6 +106,112 @@ public class FileProcessingController {
         }
     }
 
+    /**
+     * Triggers file processing for many files from one NDJSON or JSON array body.
+     * The body is parsed while it arrives, and one NDJSON result line per file is streamed back.
+     */
+    @PostMapping(value = "/process/bulk", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> processBulk(InputStream body) {
+        log.info("Received bulk file processing request");
+
+        StreamingResponseBody results = out -> bulkSubmissionService.submit(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(results);
+    }
+
+    /**
+     * Replays file processing requests from the dead-letter topic to the main topic.
+     */
+    @PostMapping("/dlt/replay")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(
+            @RequestParam(defaultValue = "1000") int maxRecords) {
+        log.info("Replaying up to {} records from the dead-letter topic", maxRecords);
+
+        try {
+            Map<String, Object> response = deadLetterReplayService.replay(maxRecords);
+            response.put("status", "success");
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("Failed to replay dead-letter topic", e);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Failed to replay dead-letter topic: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Returns the latest processing result of a file from the local status store.
+     */
+    @GetMapping("/status/{fileId}")
+    public ResponseEntity<?> getStatus(@PathVariable String fileId) {
+        FileStatus status = processingStatusStore.get(fileId);
+        if (status == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "unknown");
+            response.put("fileId", fileId);
+            response.put("message", "No processing result for this file yet");
+            return ResponseEntity.status(404).body(response);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Returns the latest processing results of several files; fileIds without a result are listed as unknown.
+     */
+    @PostMapping("/status/batch")
+    public ResponseEntity<Map<String, Object>> getStatuses(@RequestBody List<String> fileIds) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (fileIds.size() > MAX_STATUS_BATCH) {
+            response.put("status", "error");
+            response.put("message", "At most " + MAX_STATUS_BATCH + " fileIds per request");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        Map<String, FileStatus> statuses = processingStatusStore.getAll(fileIds);
+        response.put("statuses", statuses);
+        response.put("unknown", fileIds.stream().filter(fileId -> !statuses.containsKey(fileId)).toList());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Aggregates one UTC day of the processing ledger: counts by status and scan status, and processing time percentiles.
+     */
+    @GetMapping("/ledger/summary")
+    public ResponseEntity<Map<String, Object>> ledgerSummary(@RequestParam(required = false) String date) {
+        try {
+            LocalDate day = date != null ? LocalDate.parse(date) : LocalDate.now(ZoneOffset.UTC);
+            Map<String, Object> summary = processingLedger.summarize(day);
+            if (summary == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "error");
+                response.put("message", "No ledger segment for " + day);
+                return ResponseEntity.status(404).body(response);
+            }
+            return ResponseEntity.ok(summary);
+
+        } catch (DateTimeParseException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Invalid date, expected yyyy-MM-dd: " + date);
+            return ResponseEntity.badRequest().body(response);
+
+        } catch (Exception e) {
+            log.error("Failed to summarize processing ledger", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Failed to summarize processing ledger: " + e.getMessage());
+
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     /**
      * Generates and sends a random file processing message for testing.
      */
@@ -148,7 +291,7 @@ public class FileProcessingController {
         log.info("Starting continuous generation at {} messages per second", messagesPerSecond);
 
         try {
-            testDataGeneratorService.startContinuousGeneration(messagesPerSecond);
+            loadGenerator.start(LoadTestPlan.constant(messagesPerSecond, 0));
             
             Map<String, Object> response = new HashMap<>();
             response.put("status", "started");
@@ -176,7 +319,7 @@ public class FileProcessingController {
         log.info("Stopping continuous generation");
 
         try {
-            testDataGeneratorService.stopContinuousGeneration();
+            loadGenerator.stop();
             
             Map<String, Object> response = new HashMap<>();
             response.put("status", "stopped");
@@ -195,6 +338,63 @@ public class FileProcessingController {
         }
     }
 
+    /**
+     * Starts an open-loop load test with the given rate profile.
+     */
+    @PostMapping("/test/load/start")
+    public ResponseEntity<Map<String, Object>> startLoadTest(
+            @RequestParam(defaultValue = "CONSTANT") LoadProfile profile,
+            @RequestParam(defaultValue = "100") double rate,
+            @RequestParam(defaultValue = "0") double startRate,
+            @RequestParam(defaultValue = "5") int steps,
+            @RequestParam(defaultValue = "60") long durationSeconds,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "true") boolean trackEndToEnd) {
+        LoadTestPlan plan = new LoadTestPlan(profile, rate, startRate, steps, durationSeconds, threads, trackEndToEnd);
+        log.info("Starting load test: {}", plan);
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            loadGenerator.start(plan);
+            
+            response.put("status", "started");
+            response.put("plan", plan);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("status", "rejected");
+            response.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Stops the running load test.
+     */
+    @PostMapping("/test/load/stop")
+    public ResponseEntity<Map<String, Object>> stopLoadTest() {
+        log.info("Stopping load test");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", loadGenerator.stop() ? "stopped" : "not_running");
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reports throughput and coordinated-omission-corrected latency percentiles of the latest load test.
+     */
+    @GetMapping("/test/load/report")
+    public ResponseEntity<Map<String, Object>> loadTestReport() {
+        Map<String, Object> report = loadGenerator.report();
+        if (report == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(report);
+    }
+
     /**
      * Regenerates sample files.
      */
@@ -221,4 +421,35 @@ public class FileProcessingController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Compares in-flight capacity and memory per in-flight file on platform and virtual threads.
+     * The number of tasks is capped by the probe's configured maximum.
+     */
+    @PostMapping("/test/thread-capacity")
+    public ResponseEntity<Map<String, Object>> threadCapacity(
+            @RequestParam(defaultValue = "2000") int inFlight,
+            @RequestParam(defaultValue = "2000") long holdMs) {
+        log.info("Running thread capacity comparison with {} in-flight files", inFlight);
+
+        try {
+            return ResponseEntity.ok(threadCapacityProbe.compare(inFlight, holdMs));
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "rejected");
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.badRequest().body(response);
+
+        } catch (Exception e) {
+            log.error("Failed to run thread capacity comparison", e);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Failed to run thread capacity comparison: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
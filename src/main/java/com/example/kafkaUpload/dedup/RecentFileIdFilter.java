@@ -0,0 +1,132 @@
+package com.example.kafkaUpload.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded-memory memory of the fileIds whose workflows this instance started recently.
+ * A {@link RotatingBloomFilter} answers for the whole time window: a miss means the fileId is
+ * {@link Verdict#NEW}. A hit is confirmed against a bounded exact set of the most recent starts;
+ * only a confirmed hit is a {@link Verdict#DUPLICATE} and may be dropped locally. Everything else
+ * is {@link Verdict#UNSURE} and left to the Temporal workflow id check, so a false positive of
+ * the Bloom filter never drops a file.
+ */
+@Slf4j
+@Component
+public class RecentFileIdFilter {
+
+    public enum Verdict {
+        NEW,
+        DUPLICATE,
+        UNSURE
+    }
+
+    @Value("${kafka.consumer.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kafka.consumer.dedup.window-ms:600000}")
+    private long windowMs;
+
+    @Value("${kafka.consumer.dedup.generations:2}")
+    private int generations;
+
+    @Value("${kafka.consumer.dedup.expected-ids-per-window:3000000}")
+    private long expectedIdsPerWindow;
+
+    @Value("${kafka.consumer.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${kafka.consumer.dedup.exact-capacity:100000}")
+    private int exactCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RotatingBloomFilter bloomFilter;
+    private Map<String, Long> recentStarts;
+    private final Map<Verdict, Counter> checks = new EnumMap<>(Verdict.class);
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new RotatingBloomFilter(expectedIdsPerWindow, falsePositiveRate, windowMs, generations,
+                System.currentTimeMillis());
+        final int capacity = exactCapacity;
+        recentStarts = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        for (Verdict verdict : Verdict.values()) {
+            checks.put(verdict, Counter.builder("file.dedup.checks")
+                    .tag("verdict", verdict.name().toLowerCase())
+                    .description("fileId duplicate checks before workflow starts")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("file.dedup.bloom.bytes", bloomFilter, RotatingBloomFilter::sizeInBytes)
+                .description("Memory of the rotating Bloom filter of recent fileIds")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("file.dedup.exact.entries", this, RecentFileIdFilter::exactEntries)
+                .description("fileIds held in the exact set of recent workflow starts")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("fileId dedup filter: {} KB Bloom filter with {} hash functions over {} ms, {} exact entries",
+                    bloomFilter.sizeInBytes() / 1024, bloomFilter.hashFunctions(), windowMs, exactCapacity);
+        }
+    }
+
+    /**
+     * Classifies a fileId before its workflow start.
+     */
+    public Verdict check(String fileId) {
+        if (!enabled || fileId == null) {
+            return Verdict.NEW;
+        }
+        long now = System.currentTimeMillis();
+        Verdict verdict;
+        if (!bloomFilter.mightContain(fileId, now)) {
+            verdict = Verdict.NEW;
+        } else {
+            Long startedAt;
+            synchronized (this) {
+                startedAt = recentStarts.get(fileId);
+            }
+            verdict = startedAt != null && now - startedAt < windowMs ? Verdict.DUPLICATE : Verdict.UNSURE;
+        }
+        checks.get(verdict).increment();
+        return verdict;
+    }
+
+    /**
+     * Remembers a fileId whose workflow has been started or was found already started.
+     */
+    public void recordStarted(String fileId) {
+        if (!enabled || fileId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        bloomFilter.put(fileId, now);
+        synchronized (this) {
+            // Re-inserted so that the eldest entry is always the least recently started
+            recentStarts.remove(fileId);
+            recentStarts.put(fileId, now);
+        }
+    }
+
+    private synchronized int exactEntries() {
+        return recentStarts.size();
+    }
+}
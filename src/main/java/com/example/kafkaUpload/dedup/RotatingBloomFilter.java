@@ -0,0 +1,136 @@
+package com.example.kafkaUpload.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-windowed Bloom filter of strings.
+ * The window is split into generations; inserts go to the newest generation and lookups check
+ * all of them. Every window / generations the oldest generation is cleared and becomes the
+ * newest, so a key is remembered for between (generations - 1) / generations of the window and
+ * the whole window. Lookups and inserts are lock-free; a lookup racing a rotation may miss a
+ * key, which only turns a "maybe" into a "no".
+ */
+public class RotatingBloomFilter {
+
+    private final AtomicLongArray[] generations;
+    private final long bitsPerGeneration;
+    private final int hashFunctions;
+    private final long generationMillis;
+    private volatile int current;
+    private volatile long generationStartMillis;
+
+    /**
+     * @param expectedKeysPerWindow keys inserted per window at the sizing load
+     * @param falsePositiveRate target false-positive rate of a lookup across all generations
+     * @param windowMillis how long a key is remembered at most
+     * @param generationCount number of generations the window is split into, at least 2
+     */
+    public RotatingBloomFilter(long expectedKeysPerWindow, double falsePositiveRate, long windowMillis,
+                               int generationCount, long nowMillis) {
+        if (expectedKeysPerWindow < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1
+                || windowMillis < 1 || generationCount < 2) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        // A lookup can hit in any generation, so each one gets an even share of the error budget
+        long keysPerGeneration = Math.max(1, expectedKeysPerWindow / generationCount);
+        double generationRate = falsePositiveRate / generationCount;
+        long bits = (long) Math.ceil(-keysPerGeneration * Math.log(generationRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerGeneration = Math.max(64, (bits + 63) / 64 * 64);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / keysPerGeneration * Math.log(2)));
+        this.generationMillis = Math.max(1, windowMillis / generationCount);
+        this.generations = new AtomicLongArray[generationCount];
+        for (int i = 0; i < generationCount; i++) {
+            generations[i] = new AtomicLongArray(Math.toIntExact(bitsPerGeneration / 64));
+        }
+        this.generationStartMillis = nowMillis;
+    }
+
+    public boolean mightContain(String key, long nowMillis) {
+        rotateIfDue(nowMillis);
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (AtomicLongArray generation : generations) {
+            if (contains(generation, h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String key, long nowMillis) {
+        rotateIfDue(nowMillis);
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        AtomicLongArray generation = generations[current];
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitsPerGeneration);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long value;
+            while (((value = generation.get(word)) & mask) == 0
+                    && !generation.compareAndSet(word, value, value | mask)) {
+                // Retry until the bit is set
+            }
+        }
+    }
+
+    /**
+     * Memory held by the bit arrays, in bytes.
+     */
+    public long sizeInBytes() {
+        return bitsPerGeneration / 8 * generations.length;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    private boolean contains(AtomicLongArray generation, long h1, long h2) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitsPerGeneration);
+            if ((generation.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotateIfDue(long nowMillis) {
+        if (nowMillis - generationStartMillis >= generationMillis) {
+            rotate(nowMillis);
+        }
+    }
+
+    private synchronized void rotate(long nowMillis) {
+        // Idle periods may span several generations; each elapsed one is cleared
+        int elapsed = (int) Math.min(generations.length, (nowMillis - generationStartMillis) / generationMillis);
+        for (int i = 0; i < elapsed; i++) {
+            int next = (current + 1) % generations.length;
+            AtomicLongArray oldest = generations[next];
+            for (int word = 0; word < oldest.length(); word++) {
+                oldest.set(word, 0);
+            }
+            current = next;
+        }
+        if (elapsed > 0) {
+            generationStartMillis = nowMillis;
+        }
+    }
+
+    private static long hash(String key) {
+        // 64-bit FNV-1a over UTF-8, finished with a strong mixer
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.kafkaUpload.ingestion;
+
+import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingests files dropped into the configured directories.
+ * A watcher thread feeds {@code WatchService} events into a {@link FileCatalog}; an emitter
+ * sends the files that have settled as {@link FileProcessingMessage}s, up to batch-size per
+ * producer batch. The directories are listed only at startup and after an event overflow.
+ * Sent files are appended to an index, so a restart does not send unchanged files again.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "file-processing.ingestion.enabled", havingValue = "true")
+public class DirectoryIngestionService {
+
+    @Autowired
+    private FileProcessingProducer fileProcessingProducer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file-processing.ingestion.directories:./incoming}")
+    private List<String> directories;
+
+    @Value("${file-processing.ingestion.include-existing:true}")
+    private boolean includeExisting;
+
+    @Value("${file-processing.ingestion.settle-ms:1000}")
+    private long settleMs;
+
+    @Value("${file-processing.ingestion.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${file-processing.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file-processing.ingestion.sent-index-path:./ingestion/sent.tsv}")
+    private String sentIndexPath;
+
+    private final FileCatalog catalog = new FileCatalog();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+    private ScheduledExecutorService emitter;
+    private BufferedWriter sentIndex;
+    private Counter filesSent;
+    private Counter filesFailed;
+
+    @PostConstruct
+    public void init() throws IOException {
+        filesSent = Counter.builder("file.ingestion.files")
+                .tag("outcome", "sent")
+                .description("Files from watched directories sent for processing")
+                .register(meterRegistry);
+        filesFailed = Counter.builder("file.ingestion.files")
+                .tag("outcome", "failed")
+                .description("Files from watched directories sent for processing")
+                .register(meterRegistry);
+        Gauge.builder("file.ingestion.pending", catalog, FileCatalog::pendingCount)
+                .description("Files waiting to settle before they are sent")
+                .register(meterRegistry);
+
+        if (!sentIndexPath.isBlank()) {
+            openSentIndex(Paths.get(sentIndexPath));
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        for (String directory : directories) {
+            Path dir = Paths.get(directory.trim()).toAbsolutePath();
+            Files.createDirectories(dir);
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, dir);
+            if (includeExisting) {
+                scan(dir);
+            }
+            log.info("Watching directory for ingestion: {}", dir);
+        }
+
+        watcher = new Thread(this::watch, "directory-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        emitter = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("directory-ingest-"));
+        emitter.scheduleWithFixedDelay(this::emitReady, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (emitter != null) {
+            emitter.shutdownNow();
+            emitter.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (sentIndex != null) {
+            sentIndex.close();
+        }
+    }
+
+    /**
+     * Restores the files sent before a restart and rewrites the index with those still present.
+     * Each line holds size, modification time and path of one sent file.
+     */
+    private void openSentIndex(Path index) throws IOException {
+        List<FileCatalog.CatalogedFile> sent = new ArrayList<>();
+        if (Files.exists(index)) {
+            Map<Path, FileCatalog.CatalogedFile> latest = new HashMap<>();
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                try {
+                    Path path = Paths.get(fields[2]);
+                    latest.put(path, new FileCatalog.CatalogedFile(
+                            path, Long.parseLong(fields[0]), Long.parseLong(fields[1])));
+                } catch (RuntimeException e) {
+                    log.debug("Skipping malformed sent index line: {}", line);
+                }
+            }
+            for (FileCatalog.CatalogedFile file : latest.values()) {
+                if (Files.exists(file.path())) {
+                    catalog.restore(file);
+                    sent.add(file);
+                }
+            }
+        }
+
+        Files.createDirectories(index.toAbsolutePath().getParent());
+        Path rewritten = index.resolveSibling(index.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(rewritten, StandardCharsets.UTF_8)) {
+            for (FileCatalog.CatalogedFile file : sent) {
+                writeSentLine(writer, file);
+            }
+        }
+        Files.move(rewritten, index, StandardCopyOption.REPLACE_EXISTING);
+        sentIndex = Files.newBufferedWriter(index, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        log.info("Restored {} sent files from {}", sent.size(), index);
+    }
+
+    private static void writeSentLine(BufferedWriter writer, FileCatalog.CatalogedFile file) throws IOException {
+        writer.write(file.size() + "\t" + file.lastModifiedMillis() + "\t" + file.path());
+        writer.newLine();
+    }
+
+    /**
+     * Appends acknowledged files to the sent index. Only the emitter thread writes it.
+     */
+    private void recordSent(List<FileCatalog.CatalogedFile> files) {
+        if (sentIndex == null) {
+            return;
+        }
+        try {
+            for (FileCatalog.CatalogedFile file : files) {
+                writeSentLine(sentIndex, file);
+            }
+            sentIndex.flush();
+        } catch (IOException e) {
+            log.warn("Failed to record {} sent files, they are sent again after a restart: {}",
+                    files.size(), e.getMessage());
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        log.warn("Watch events lost for {}, rescanning", dir);
+                        scan(dir);
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        catalog.remove(file);
+                    } else if (isCandidate(file)) {
+                        catalog.touch(file);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Directory is no longer watched: {}", dir);
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Directory watcher stopped");
+        }
+    }
+
+    private void scan(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(this::isCandidate).forEach(catalog::touch);
+        } catch (IOException e) {
+            log.error("Failed to list directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Skips hidden files and the usual temporary names of files still being uploaded.
+     */
+    private boolean isCandidate(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && !name.endsWith(".tmp") && !name.endsWith(".part");
+    }
+
+    /**
+     * Sends every settled file, one producer batch at a time. Waiting for each batch to be
+     * acknowledged keeps a burst of files from exhausting the producer buffer.
+     */
+    private void emitReady() {
+        try {
+            List<FileCatalog.CatalogedFile> ready;
+            while (!(ready = catalog.drainReady(System.currentTimeMillis(), settleMs, batchSize)).isEmpty()) {
+                List<FileProcessingMessage> messages = ready.stream().map(this::toMessage).toList();
+                try {
+                    fileProcessingProducer.sendFileProcessingRequests(messages).join();
+                    filesSent.increment(messages.size());
+                } catch (Exception e) {
+                    // Resent files keep their fileIds; a workflow already running for one is not started twice,
+                    // but a file whose workflow has finished is processed again
+                    log.error("Failed to send {} ingested files, retrying: {}", messages.size(), e.getMessage());
+                    filesFailed.increment(messages.size());
+                    catalog.retry(ready);
+                    return;
+                }
+                recordSent(ready);
+            }
+        } catch (Exception e) {
+            log.error("Error emitting ingested files", e);
+        }
+    }
+
+    private FileProcessingMessage toMessage(FileCatalog.CatalogedFile file) {
+        String fileName = file.path().getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+
+        FileProcessingMessage message = new FileProcessingMessage();
+        message.setFileId(file.fileId());
+        message.setFilePath(file.path().toAbsolutePath().toString());
+        message.setFileName(fileName);
+        message.setFileType(dotIndex > 0 ? fileName.substring(dotIndex + 1) : "");
+        message.setFileSize(file.size());
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+}
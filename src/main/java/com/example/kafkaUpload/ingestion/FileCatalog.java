@@ -0,0 +1,167 @@
+package com.example.kafkaUpload.ingestion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Incremental in-memory catalog of the files in the watched directories.
+ * Watch events only mark a file as pending; a pending file becomes ready once its size and
+ * modification time have not changed for the settle period, i.e. once the writer is done.
+ * Only pending files are stat'ed, each at most once per settle period, so a burst never causes
+ * a directory rescan.
+ */
+public class FileCatalog {
+
+    private final Map<Path, Observation> pending = new LinkedHashMap<>();
+    private final Map<Path, CatalogedFile> emitted = new HashMap<>();
+
+    /**
+     * A fully written file. The fileId is derived from path, size and modification time, so
+     * sending the same version twice yields the same fileId and thus the same workflow id.
+     */
+    public record CatalogedFile(Path path, long size, long lastModifiedMillis) {
+
+        public String fileId() {
+            String key = path.toAbsolutePath() + "|" + size + "|" + lastModifiedMillis;
+            return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+        }
+    }
+
+    private record Observation(long size, long lastModifiedMillis, long observedAtMillis) {
+        static final Observation NONE = new Observation(-1, -1, 0);
+    }
+
+    /**
+     * The outcome of stat'ing a pending file; attributes are null if the file is gone or could not be read.
+     */
+    private record Check(Path path, Observation seen, BasicFileAttributes attributes, boolean gone) {
+    }
+
+    /**
+     * Marks a created or modified file as pending.
+     */
+    public synchronized void touch(Path path) {
+        pending.putIfAbsent(path, Observation.NONE);
+    }
+
+    /**
+     * Records a file sent before a restart, so that it is not sent again unless it changes.
+     */
+    public synchronized void restore(CatalogedFile file) {
+        emitted.put(file.path(), file);
+    }
+
+    /**
+     * Forgets a deleted file.
+     */
+    public synchronized void remove(Path path) {
+        pending.remove(path);
+        emitted.remove(path);
+    }
+
+    /**
+     * Makes files whose send failed pending again.
+     */
+    public synchronized void retry(List<CatalogedFile> files) {
+        for (CatalogedFile file : files) {
+            emitted.remove(file.path());
+            pending.putIfAbsent(file.path(), Observation.NONE);
+        }
+    }
+
+    /**
+     * Checks the pending files that are due and returns up to {@code max} that have settled.
+     * A file is due when it was never checked or its settle period has passed since it was last
+     * seen to change. Due files are stat'ed outside the catalog lock, so watch events never wait
+     * for the file system. Returned files are recorded as emitted and are not returned again
+     * unless they change.
+     */
+    public List<CatalogedFile> drainReady(long nowMillis, long settleMillis, int max) {
+        List<Map.Entry<Path, Observation>> due = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Path, Observation> entry : pending.entrySet()) {
+                Observation observation = entry.getValue();
+                if (observation == Observation.NONE || observation.observedAtMillis() + settleMillis <= nowMillis) {
+                    due.add(Map.entry(entry.getKey(), observation));
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        List<Check> checks = new ArrayList<>(due.size());
+        for (Map.Entry<Path, Observation> entry : due) {
+            checks.add(check(entry.getKey(), entry.getValue()));
+        }
+
+        List<CatalogedFile> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Check check : checks) {
+                Path path = check.path();
+                // Deleted or touched again while it was being stat'ed
+                if (pending.get(path) != check.seen()) {
+                    continue;
+                }
+                if (check.gone()) {
+                    pending.remove(path);
+                    continue;
+                }
+                if (check.attributes() == null) {
+                    continue;
+                }
+
+                long size = check.attributes().size();
+                long lastModified = check.attributes().lastModifiedTime().toMillis();
+                Observation previous = check.seen();
+                if (previous.size() != size || previous.lastModifiedMillis() != lastModified) {
+                    // Still being written, or seen for the first time
+                    pending.put(path, new Observation(size, lastModified, nowMillis));
+                    continue;
+                }
+                if (ready.size() >= max) {
+                    continue;
+                }
+
+                pending.remove(path);
+                CatalogedFile file = new CatalogedFile(path, size, lastModified);
+                // A modify event without an actual change must not emit the file again
+                if (!file.equals(emitted.put(path, file))) {
+                    ready.add(file);
+                }
+            }
+        }
+        return ready;
+    }
+
+    private static Check check(Path path, Observation seen) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.isRegularFile()
+                    ? new Check(path, seen, attributes, false)
+                    : new Check(path, seen, null, true);
+        } catch (NoSuchFileException e) {
+            return new Check(path, seen, null, true);
+        } catch (IOException e) {
+            return new Check(path, seen, null, false);
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int size() {
+        return emitted.size();
+    }
+}
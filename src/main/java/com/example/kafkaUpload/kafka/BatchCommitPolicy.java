@@ -0,0 +1,23 @@
+package com.example.kafkaUpload.kafka;
+
+/**
+ * Controls when the batch listener commits the offsets of a poll.
+ */
+public enum BatchCommitPolicy {
+    /**
+     * Commit the whole batch only if every workflow start was accepted.
+     * Otherwise commit up to the first failed record and redeliver the rest.
+     */
+    ALL_STARTED,
+
+    /**
+     * Always commit the whole batch; failed starts are reported as failed results.
+     */
+    ALWAYS,
+
+    /**
+     * Always commit the whole batch; records whose start failed are forwarded to the
+     * dead-letter topic with the cause in the headers, for replay.
+     */
+    DEAD_LETTER
+}
@@ -0,0 +1,301 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link FileProcessingMessage} and {@link ProcessingResult}.
+ * <p>
+ * A record is a schema version byte, a type byte and the fields in declaration order. Integers
+ * are zig-zag varints, canonical UUID strings take 16 bytes, enums are ordinals and timestamps
+ * are epoch seconds plus nanos. Nullable values carry a presence marker.
+ * <p>
+ * Evolution rules: new fields are only appended, and enum constants are only appended. A
+ * decoder stops at the end of the buffer, so older records leave newer fields at their
+ * defaults and older decoders ignore trailing fields they do not know. Enum constants an
+ * older decoder does not know decode as null, and unknown completed steps are left out.
+ */
+public class CompactPayloadCodec {
+
+    public static final byte SCHEMA_VERSION = 1;
+
+    private static final byte TYPE_FILE_PROCESSING_MESSAGE = 1;
+    private static final byte TYPE_PROCESSING_RESULT = 2;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_UUID = 1;
+    private static final int STRING_TEXT = 2;
+
+    public boolean supports(Object value) {
+        return value instanceof FileProcessingMessage || value instanceof ProcessingResult;
+    }
+
+    public byte[] encode(Object value) {
+        Writer out = new Writer();
+        out.write(SCHEMA_VERSION);
+        if (value instanceof FileProcessingMessage message) {
+            out.write(TYPE_FILE_PROCESSING_MESSAGE);
+            out.writeString(message.getFileId());
+            out.writeString(message.getFilePath());
+            out.writeString(message.getFileName());
+            out.writeString(message.getFileType());
+            out.writeLong(message.getFileSize());
+            out.writeDateTime(message.getCreatedAt());
+        } else if (value instanceof ProcessingResult result) {
+            out.write(TYPE_PROCESSING_RESULT);
+            out.writeString(result.getFileId());
+            out.writeString(result.getFilePath());
+            out.writeEnum(result.getStatus());
+            List<ProcessingResult.ProcessingStep> steps = result.getCompletedSteps();
+            out.writeLong(steps != null ? steps.size() : 0);
+            if (steps != null) {
+                steps.forEach(out::writeEnum);
+            }
+            out.writeString(result.getErrorMessage());
+            out.writeDateTime(result.getStartTime());
+            out.writeDateTime(result.getEndTime());
+            out.writeLong(result.getProcessingTimeMs());
+            out.writeDateTime(result.getRequestCreatedAt());
+            out.writeEnum(result.getScanStatus());
+        } else {
+            throw new SerializationException("Compact encoding not supported for " + value.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    public Object decode(byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            byte version = in.get();
+            if (version < 1 || version > SCHEMA_VERSION) {
+                throw new SerializationException("Unsupported compact schema version " + version);
+            }
+            byte type = in.get();
+            switch (type) {
+                case TYPE_FILE_PROCESSING_MESSAGE:
+                    return decodeFileProcessingMessage(in);
+                case TYPE_PROCESSING_RESULT:
+                    return decodeProcessingResult(in);
+                default:
+                    throw new SerializationException("Unknown compact payload type " + type);
+            }
+        } catch (RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw e;
+            }
+            throw new SerializationException("Malformed compact payload", e);
+        }
+    }
+
+    private FileProcessingMessage decodeFileProcessingMessage(ByteBuffer in) {
+        FileProcessingMessage message = new FileProcessingMessage();
+        message.setFileId(readString(in));
+        message.setFilePath(readString(in));
+        message.setFileName(readString(in));
+        message.setFileType(readString(in));
+        message.setFileSize(readLong(in));
+        message.setCreatedAt(readDateTime(in));
+        return message;
+    }
+
+    private ProcessingResult decodeProcessingResult(ByteBuffer in) {
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(readString(in));
+        result.setFilePath(readString(in));
+        result.setStatus(readEnum(in, ProcessingResult.ProcessingStatus.values()));
+        long steps = readLong(in);
+        // Every step takes at least one byte; checked before the count sizes an allocation
+        if (steps < 0 || steps > in.remaining()) {
+            throw new SerializationException("Invalid completed step count " + steps);
+        }
+        List<ProcessingResult.ProcessingStep> completedSteps = new ArrayList<>((int) steps);
+        for (int i = 0; i < steps; i++) {
+            ProcessingResult.ProcessingStep step = readEnum(in, ProcessingResult.ProcessingStep.values());
+            if (step != null) {
+                completedSteps.add(step);
+            }
+        }
+        result.setCompletedSteps(completedSteps);
+        result.setErrorMessage(readString(in));
+        result.setStartTime(readDateTime(in));
+        result.setEndTime(readDateTime(in));
+        result.setProcessingTimeMs(readLong(in));
+        // Fields appended to the schema are read only if present
+        if (in.hasRemaining()) {
+            result.setRequestCreatedAt(readDateTime(in));
+        }
+        if (in.hasRemaining()) {
+            result.setScanStatus(readEnum(in, ScanResult.ScanStatus.values()));
+        }
+        return result;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+
+    private static long readLong(ByteBuffer in) {
+        long zigzag = readVarLong(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int kind = in.get();
+        switch (kind) {
+            case STRING_NULL:
+                return null;
+            case STRING_UUID:
+                return new UUID(in.getLong(), in.getLong()).toString();
+            case STRING_TEXT:
+                int length = (int) readVarLong(in);
+                String text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                return text;
+            default:
+                throw new SerializationException("Unknown string encoding " + kind);
+        }
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] constants) {
+        long ordinal = readVarLong(in) - 1;
+        // Absent, or a constant appended after this decoder was built
+        if (ordinal < 0 || ordinal >= constants.length) {
+            return null;
+        }
+        return constants[(int) ordinal];
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        long seconds = readLong(in);
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * Unsynchronized growable byte buffer.
+     */
+    private static final class Writer {
+
+        private byte[] buffer = new byte[128];
+        private int count;
+
+        void write(int b) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                write(STRING_NULL);
+                return;
+            }
+            if (isCanonicalUuid(value)) {
+                write(STRING_UUID);
+                writeFixedLong(hexToLong(value, 0, 8) << 32 | hexToLong(value, 9, 13) << 16 | hexToLong(value, 14, 18));
+                writeFixedLong(hexToLong(value, 19, 23) << 48 | hexToLong(value, 24, 36));
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            write(STRING_TEXT);
+            writeVarLong(bytes.length);
+            write(bytes);
+        }
+
+        void writeEnum(Enum<?> value) {
+            writeVarLong(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            if (value == null) {
+                write(0);
+                return;
+            }
+            write(1);
+            writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(value.getNano());
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, count);
+        }
+
+        private void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[count++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
+            }
+        }
+    }
+
+    /**
+     * Only lower-case canonical UUID strings are packed, so decoding restores the exact text.
+     */
+    private static boolean isCanonicalUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hexToLong(String value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = (result << 4) | Character.digit(value.charAt(i), 16);
+        }
+        return result;
+    }
+}
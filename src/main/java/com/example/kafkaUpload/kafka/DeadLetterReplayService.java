@@ -0,0 +1,104 @@
+package com.example.kafkaUpload.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Replays file processing requests from the dead-letter topic to the main topic.
+ * A dedicated consumer group remembers how far the DLT has been replayed, so every dead-lettered
+ * record is replayed once; replayed records start fresh with the full retry budget.
+ */
+@Slf4j
+@Service
+public class DeadLetterReplayService {
+
+    private static final String REPLAY_GROUP_ID = "file-processing-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final int MAX_EMPTY_POLLS = 3;
+
+    @Autowired
+    @Qualifier("consumerFactory")
+    private ConsumerFactory<String, Object> consumerFactory;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${kafka.topic.file-processing:file-processing-requests}")
+    private String fileProcessingTopic;
+
+    @Value("${kafka.topic.file-processing-dlt:file-processing-requests-dlt}")
+    private String deadLetterTopic;
+
+    /**
+     * Replays up to {@code maxRecords} records that have not been replayed yet.
+     *
+     * @return the number of records replayed and the offsets committed per partition
+     */
+    public synchronized Map<String, Object> replay(int maxRecords) {
+        int replayed = 0;
+        Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>();
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, Math.min(maxRecords, 500)));
+
+        try (Consumer<String, Object> consumer =
+                     consumerFactory.createConsumer(REPLAY_GROUP_ID, null, "-dlt-replay", overrides)) {
+            consumer.subscribe(List.of(deadLetterTopic));
+            // The first polls of a new consumer may return nothing while it joins the group
+            int emptyPolls = 0;
+            while (replayed < maxRecords && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, Object> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                // Once records flow, the next empty poll means the DLT is drained
+                emptyPolls = MAX_EMPTY_POLLS - 1;
+
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, Object> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    // Sent without the DLT headers, so the record gets the full retry budget again
+                    sends.add(kafkaTemplate.send(fileProcessingTopic, record.key(), record.value()));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                // Commit only what has been acknowledged on the main topic
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(offsets);
+                committed.putAll(offsets);
+            }
+        }
+
+        log.info("Replayed {} records from {} to {}", replayed, deadLetterTopic, fileProcessingTopic);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("replayed", replayed);
+        Map<String, Long> offsets = new LinkedHashMap<>();
+        committed.forEach((partition, offset) -> offsets.put(partition.toString(), offset.offset()));
+        response.put("committedOffsets", offsets);
+        return response;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.metrics.PipelineMetrics;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.service.FileProcessingService;
+import com.example.kafkaUpload.tracing.PipelineTracing;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Batch Kafka consumer for file processing messages.
+ * Receives a whole poll at once, starts the workflows of the batch concurrently and
+ * commits once after every start has been confirmed by Temporal.
+ * Workflows are always started asynchronously in this mode. With batch workflows enabled,
+ * each poll is split into groups of up to {@code temporal.workflow.batch.size} files, aligned to
+ * partition offsets, and each group is processed by one {@code FileBatchProcessingWorkflow}; the
+ * poll itself is the time window, bounded by {@code kafka.consumer.batch.fetch-max-wait-ms}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.consumer.listener-mode", havingValue = "batch")
+public class FileProcessingBatchConsumer {
+
+    @Autowired
+    private FileProcessingService fileProcessingService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PipelineTracing pipelineTracing;
+
+    @Autowired
+    @Qualifier("workflowStartExecutor")
+    private Executor workflowStartExecutor;
+
+    @Value("${kafka.consumer.batch.commit-policy:ALL_STARTED}")
+    private BatchCommitPolicy commitPolicy;
+
+    @Value("${kafka.consumer.batch.redelivery-delay-ms:1000}")
+    private long redeliveryDelayMs;
+
+    @Value("${temporal.workflow.batch.enabled:false}")
+    private boolean batchWorkflowEnabled;
+
+    @Value("${temporal.workflow.batch.size:50}")
+    private int batchWorkflowSize;
+
+    @Value("${kafka.topic.file-processing-dlt:file-processing-requests-dlt}")
+    private String deadLetterTopic;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    @PostConstruct
+    public void init() {
+        // Same partition as the source record; adds the cause and original coordinates as headers
+        deadLetterRecoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(deadLetterTopic, record.partition()));
+    }
+
+    @KafkaListener(
+        id = "file-processing-batch-listener",
+        topics = "${kafka.topic.file-processing:file-processing-requests}",
+        groupId = "${kafka.consumer.group-id:file-processors}",
+        containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumeFileProcessingBatch(
+            List<ConsumerRecord<String, FileProcessingMessage>> records,
+            Acknowledgment acknowledgment) {
+
+        log.info("Received batch of {} file processing messages", records.size());
+
+        // One start per record, or one batch workflow start per group of records
+        int groupSize = batchWorkflowEnabled ? Math.max(1, batchWorkflowSize) : 1;
+        List<Integer> groupStarts = groupStarts(records, groupSize);
+        List<CompletableFuture<Boolean>> starts = new ArrayList<>();
+        for (int i = 0; i < groupStarts.size(); i++) {
+            int to = i + 1 < groupStarts.size() ? groupStarts.get(i + 1) : records.size();
+            List<ConsumerRecord<String, FileProcessingMessage>> group = records.subList(groupStarts.get(i), to);
+            starts.add(CompletableFuture.supplyAsync(() -> startWorkflows(group), workflowStartExecutor));
+        }
+
+        int firstFailure = -1;
+        int failures = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            if (!starts.get(i).join()) {
+                failures++;
+                if (firstFailure < 0) {
+                    firstFailure = groupStarts.get(i);
+                }
+            }
+        }
+
+        if (failures == 0 || commitPolicy != BatchCommitPolicy.ALL_STARTED) {
+            acknowledgment.acknowledge();
+            log.info("Committed batch of {} file processing messages ({} failed starts)", records.size(), failures);
+        } else {
+            // Commit everything before the first failure and redeliver the rest of the batch
+            log.warn("{} of {} workflow starts failed, redelivering batch from offset {}",
+                    failures, records.size(), records.get(firstFailure).offset());
+            acknowledgment.nack(firstFailure, Duration.ofMillis(redeliveryDelayMs));
+        }
+    }
+
+    /**
+     * Splits the poll into groups of records of one partition whose offsets fall into the same
+     * block of {@code groupSize} offsets. A redelivered poll, however it was split, then forms the
+     * same groups again, except possibly for the last, partial group of each partition.
+     * Records of a poll are contiguous per partition, so each group is a contiguous range.
+     *
+     * @return the index of the first record of each group
+     */
+    static List<Integer> groupStarts(List<? extends ConsumerRecord<?, ?>> records, int groupSize) {
+        List<Integer> groupStarts = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<?, ?> record = records.get(i);
+            ConsumerRecord<?, ?> previous = i > 0 ? records.get(i - 1) : null;
+            if (previous == null
+                    || previous.partition() != record.partition()
+                    || !previous.topic().equals(record.topic())
+                    || previous.offset() / groupSize != record.offset() / groupSize) {
+                groupStarts.add(i);
+            }
+        }
+        return groupStarts;
+    }
+
+    private boolean startWorkflows(List<ConsumerRecord<String, FileProcessingMessage>> group) {
+        ConsumerRecord<String, FileProcessingMessage> first = group.get(0);
+        group.forEach(record -> pipelineMetrics.recordConsumeToStart(record.timestamp()));
+
+        // Batch listeners are not observed by the container; continue the trace of the first record
+        Span span = pipelineTracing.startSpan("file-processing-batch-listener receive", first);
+        try (Tracer.SpanInScope ignored = pipelineTracing.withSpan(span)) {
+            pipelineTracing.recordQueueWait(first.timestamp());
+            if (batchWorkflowEnabled) {
+                fileProcessingService.startBatchWorkflow(group.stream().map(ConsumerRecord::value).toList());
+            } else {
+                fileProcessingService.startWorkflow(first.value());
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Error starting workflow for {} message(s): fileId={}, partition={}, offset={}, error={}",
+                    group.size(), first.value().getFileId(), first.partition(), first.offset(), e.getMessage(), e);
+            if (commitPolicy == BatchCommitPolicy.ALWAYS) {
+                for (ConsumerRecord<String, FileProcessingMessage> record : group) {
+                    fileProcessingService.publishStartFailure(record.value(), "Workflow start failed: " + e.getMessage());
+                }
+            } else if (commitPolicy == BatchCommitPolicy.DEAD_LETTER) {
+                for (ConsumerRecord<String, FileProcessingMessage> record : group) {
+                    deadLetterRecoverer.accept(record, e);
+                }
+            }
+            span.error(e);
+            return false;
+        } finally {
+            span.end();
+        }
+    }
+}
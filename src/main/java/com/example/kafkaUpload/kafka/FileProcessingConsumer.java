@@ -1,14 +1,21 @@
 package com.example.kafkaUpload.kafka;
 
+import com.example.kafkaUpload.metrics.PipelineMetrics;
 import com.example.kafkaUpload.model.FileProcessingMessage;
 import com.example.kafkaUpload.service.FileProcessingService;
+import com.example.kafkaUpload.tracing.PipelineTracing;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,12 +24,43 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "kafka.consumer.listener-mode", havingValue = "record", matchIfMissing = true)
 public class FileProcessingConsumer {
 
     @Autowired
     private FileProcessingService fileProcessingService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PipelineTracing pipelineTracing;
+
+    @Autowired
+    private InFlightTracker inFlightTracker;
+
+    /**
+     * Failed starts are not retried in place, which would block the partition. The record is
+     * forwarded to the next retry topic, each with a longer delay, and after the last attempt
+     * to the {@code -dlt} topic. Spring adds the attempt count and the cause as headers.
+     */
+    @RetryableTopic(
+        attempts = "${kafka.consumer.retry.attempts:4}",
+        backoff = @Backoff(
+            delayExpression = "${kafka.consumer.retry.initial-delay-ms:1000}",
+            multiplierExpression = "${kafka.consumer.retry.multiplier:5}",
+            maxDelayExpression = "${kafka.consumer.retry.max-delay-ms:60000}"
+        ),
+        concurrency = "${kafka.consumer.retry.concurrency:1}",
+        topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+        dltTopicSuffix = "-dlt",
+        numPartitions = "3",
+        replicationFactor = "1",
+        // Without a Temporal client a retry cannot succeed
+        exclude = IllegalStateException.class
+    )
     @KafkaListener(
+        id = "file-processing-listener",
         topics = "${kafka.topic.file-processing:file-processing-requests}",
         groupId = "${kafka.consumer.group-id:file-processors}",
         containerFactory = "kafkaListenerContainerFactory"
@@ -32,6 +70,7 @@ public class FileProcessingConsumer {
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp,
             Acknowledgment acknowledgment) {
         
         log.info("Received file processing message: fileId={}, filePath={}, topic={}, partition={}, offset={}", 
@@ -39,20 +78,50 @@ public class FileProcessingConsumer {
 
         try {
             // Start Temporal workflow for file processing
-            fileProcessingService.startFileProcessingWorkflow(message);
+            pipelineMetrics.recordConsumeToStart(timestamp);
+            pipelineTracing.recordQueueWait(timestamp);
+            if (fileProcessingService.isAsyncStartMode()) {
+                // Throws if the start fails, which moves the record to the next retry topic
+                fileProcessingService.startWorkflow(message);
+            } else {
+                // Counted until the workflow completes; pauses the container at the high watermark
+                inFlightTracker.acquire();
+                try {
+                    // Started on the listener thread, so a failed start also goes to the retry topics
+                    fileProcessingService.startWorkflow(message);
+                    fileProcessingService.awaitWorkflowResult(message)
+                            .whenComplete((result, ex) -> inFlightTracker.release());
+                } catch (RuntimeException e) {
+                    inFlightTracker.release();
+                    throw e;
+                }
+            }
             
             // Acknowledge message processing
             acknowledgment.acknowledge();
             
             log.info("Successfully processed file processing message: fileId={}", message.getFileId());
             
-        } catch (Exception e) {
-            log.error("Error processing file processing message: fileId={}, error={}", 
-                    message.getFileId(), e.getMessage(), e);
-            
-            // TODO: Implement dead letter queue or retry logic
-            // For now, we'll acknowledge to prevent reprocessing
-            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("Error processing file processing message: fileId={}, topic={}, error={}", 
+                    message.getFileId(), topic, e.getMessage(), e);
+            throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Handles records that failed every attempt. They stay on the DLT for replay; a failed
+     * result is published so that downstream consumers are not left waiting.
+     */
+    @DltHandler
+    public void handleDeadLetter(
+            @Payload FileProcessingMessage message,
+            @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String cause,
+            Acknowledgment acknowledgment) {
+        log.error("File processing message moved to dead-letter topic: fileId={}, cause={}", 
+                message.getFileId(), cause);
+
+        fileProcessingService.publishStartFailure(message, "Workflow start failed after all retries: " + cause);
+        acknowledgment.acknowledge();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -53,6 +54,42 @@ public class FileProcessingProducer {
                 });
     }
 
+    /**
+     * Sends many file processing requests without waiting for each acknowledgement, so the
+     * producer packs them into as few record batches as possible.
+     *
+     * @param messages the file processing messages
+     * @return CompletableFuture that completes when every send is acknowledged
+     */
+    public CompletableFuture<Void> sendFileProcessingRequests(List<FileProcessingMessage> messages) {
+        log.info("Sending {} file processing requests", messages.size());
+
+        CompletableFuture<?>[] sends = messages.stream()
+                .map(message -> kafkaTemplate.send(fileProcessingTopic, message.getFileId(), message))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(sends)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send batch of {} file processing requests, error={}", 
+                                messages.size(), ex.getMessage());
+                    } else {
+                        log.debug("Successfully sent batch of {} file processing requests", messages.size());
+                    }
+                });
+    }
+
+    /**
+     * Sends a file processing request for high-rate callers such as the load generator and bulk submit.
+     * Unlike {@link #sendFileProcessingRequest} nothing is logged per message, so logging
+     * does not limit the achievable rate.
+     *
+     * @param message the file processing message
+     * @return CompletableFuture for the send result
+     */
+    public CompletableFuture<SendResult<String, Object>> sendFileProcessingRequestQuietly(FileProcessingMessage message) {
+        return kafkaTemplate.send(fileProcessingTopic, message.getFileId(), message);
+    }
+
     /**
      * Publishes a processing result to Kafka.
      * 
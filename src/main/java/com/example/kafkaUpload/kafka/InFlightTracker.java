@@ -0,0 +1,117 @@
+package com.example.kafkaUpload.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the records whose processing has been handed off but not yet finished, and applies
+ * backpressure to Kafka. At the high watermark the listener containers pause their assigned
+ * partitions; below the low watermark they resume. A surge then waits in Kafka, not on the heap.
+ * Records already fetched by the current poll are still delivered after a pause, so the count
+ * can exceed the high watermark by up to max-poll-records per consumer thread.
+ */
+@Slf4j
+@Component
+public class InFlightTracker {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final boolean enabled;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final List<String> listenerIds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter pauses;
+    private volatile boolean paused;
+
+    public InFlightTracker(KafkaListenerEndpointRegistry listenerRegistry,
+                           MeterRegistry meterRegistry,
+                           @Value("${kafka.consumer.backpressure.enabled:true}") boolean enabled,
+                           @Value("${kafka.consumer.backpressure.high-watermark:500}") int highWatermark,
+                           @Value("${kafka.consumer.backpressure.low-watermark:250}") int lowWatermark,
+                           @Value("${kafka.consumer.backpressure.listener-ids:file-processing-listener}") List<String> listenerIds) {
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Backpressure watermarks must satisfy 0 <= low < high, got low="
+                    + lowWatermark + ", high=" + highWatermark);
+        }
+        this.listenerRegistry = listenerRegistry;
+        this.enabled = enabled;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.listenerIds = listenerIds;
+
+        Gauge.builder("file.pipeline.consumer.in.flight", inFlight, AtomicInteger::get)
+                .description("Consumed records whose processing has not finished")
+                .register(meterRegistry);
+        Gauge.builder("file.pipeline.consumer.paused", this, tracker -> tracker.paused ? 1 : 0)
+                .description("1 while the listener containers are paused by backpressure")
+                .register(meterRegistry);
+        pauses = Counter.builder("file.pipeline.consumer.pauses")
+                .description("Times the listener containers were paused by backpressure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a record as in flight, pausing consumption at the high watermark.
+     * Every call must be matched by one {@link #release()}.
+     */
+    public void acquire() {
+        if (inFlight.incrementAndGet() >= highWatermark && enabled && !paused) {
+            pauseIfAboveHighWatermark();
+        }
+    }
+
+    /**
+     * Marks a record as finished, resuming consumption at the low watermark.
+     */
+    public void release() {
+        if (inFlight.decrementAndGet() <= lowWatermark && paused) {
+            resumeIfBelowLowWatermark();
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    private synchronized void pauseIfAboveHighWatermark() {
+        if (!paused && inFlight.get() >= highWatermark) {
+            paused = true;
+            pauses.increment();
+            containers().forEach(MessageListenerContainer::pause);
+            log.warn("Pausing consumption: {} records in flight (high watermark {})", inFlight.get(), highWatermark);
+            // A release() that ran before paused was set saw paused == false and skipped the resume;
+            // re-check here so those releases cannot leave the containers paused for good.
+            resumeIfBelowLowWatermark();
+        }
+    }
+
+    private synchronized void resumeIfBelowLowWatermark() {
+        if (paused && inFlight.get() <= lowWatermark) {
+            paused = false;
+            containers().forEach(MessageListenerContainer::resume);
+            log.info("Resuming consumption: {} records in flight (low watermark {})", inFlight.get(), lowWatermark);
+        }
+    }
+
+    private List<MessageListenerContainer> containers() {
+        return listenerIds.stream()
+                .map(String::trim)
+                .map(listenerRegistry::getListenerContainer)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
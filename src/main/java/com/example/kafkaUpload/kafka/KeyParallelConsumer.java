@@ -0,0 +1,410 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.metrics.PipelineMetrics;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.service.FileProcessingService;
+import com.example.kafkaUpload.tracing.PipelineTracing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key-parallel Kafka consumer for file processing messages.
+ * The record and batch listeners process a partition on one consumer thread, so parallelism is
+ * capped by the partition count. Here one polling thread fans the records of every assigned
+ * partition out to {@code kafka.consumer.key-parallel.lanes} single-threaded lanes, chosen by the
+ * record key (the fileId): records of one key stay in order, records of different keys run
+ * concurrently. Records complete out of order, so each partition only commits its contiguous
+ * completed offset (see {@link PartitionWatermark}); a crash redelivers at most the records above it.
+ * Workflows are always started asynchronously in this mode.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.consumer.listener-mode", havingValue = "key-parallel")
+public class KeyParallelConsumer implements SmartLifecycle, ConsumerRebalanceListener {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    @Autowired
+    @Qualifier("consumerFactory")
+    private ConsumerFactory<String, Object> consumerFactory;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private FileProcessingService fileProcessingService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PipelineTracing pipelineTracing;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kafka.topic.file-processing:file-processing-requests}")
+    private String fileProcessingTopic;
+
+    @Value("${kafka.topic.file-processing-dlt:file-processing-requests-dlt}")
+    private String deadLetterTopic;
+
+    @Value("${kafka.consumer.group-id:file-processors}")
+    private String groupId;
+
+    @Value("${kafka.consumer.key-parallel.lanes:64}")
+    private int laneCount;
+
+    @Value("${kafka.consumer.key-parallel.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.key-parallel.max-pending-per-partition:5000}")
+    private int maxPendingPerPartition;
+
+    @Value("${kafka.consumer.key-parallel.commit-interval-ms:1000}")
+    private long commitIntervalMs;
+
+    @Value("${kafka.consumer.key-parallel.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${kafka.consumer.key-parallel.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${kafka.consumer.key-parallel.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    // Written by the polling thread, read by the lanes and the pending gauge
+    private final Map<TopicPartition, PartitionWatermark> watermarks = new ConcurrentHashMap<>();
+
+    private ExecutorService[] lanes;
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private Consumer<String, Object> consumer;
+    private Thread pollThread;
+    private final Set<TopicPartition> paused = new HashSet<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        ThreadFactory laneThreads = new CustomizableThreadFactory("key-lane-");
+        lanes = new ExecutorService[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(laneThreads);
+        }
+        // Same partition as the source record, like the batch listener's DEAD_LETTER policy
+        deadLetterRecoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(deadLetterTopic, record.partition()));
+
+        Gauge.builder("file.pipeline.consumer.pending", watermarks,
+                        map -> map.values().stream().mapToInt(PartitionWatermark::pending).sum())
+                .description("Records dispatched to the key lanes whose processing has not finished")
+                .register(meterRegistry);
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        consumer = consumerFactory.createConsumer(groupId, null, "-key-parallel", overrides);
+
+        running = true;
+        pollThread = new Thread(this::pollLoop, "key-parallel-poller");
+        pollThread.start();
+        log.info("Started key-parallel consumer on {} with {} lanes", fileProcessingTopic, lanes.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        consumer.wakeup();
+        try {
+            pollThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped key-parallel consumer");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollLoop() {
+        consumer.subscribe(List.of(fileProcessingTopic), this);
+        long nextCommit = System.currentTimeMillis() + commitIntervalMs;
+        try {
+            while (running) {
+                try {
+                    dispatch(consumer.poll(POLL_TIMEOUT));
+                } catch (RecordDeserializationException e) {
+                    // Nothing can process the record; count it as completed and move past it
+                    log.error("Skipping undeserializable record at {}@{}: {}",
+                            e.topicPartition(), e.offset(), e.getMessage());
+                    PartitionWatermark watermark = watermarks.get(e.topicPartition());
+                    if (watermark != null) {
+                        watermark.track(e.offset());
+                        watermark.complete(e.offset());
+                    }
+                    consumer.seek(e.topicPartition(), e.offset() + 1);
+                }
+                applyBackpressure();
+                if (System.currentTimeMillis() >= nextCommit) {
+                    commitAsync();
+                    nextCommit = System.currentTimeMillis() + commitIntervalMs;
+                }
+            }
+        } catch (WakeupException e) {
+            if (running) {
+                throw e;
+            }
+        } finally {
+            drainLanes();
+            commitSync(watermarks.keySet());
+            consumer.close();
+        }
+    }
+
+    private void dispatch(ConsumerRecords<String, Object> records) {
+        for (ConsumerRecord<String, Object> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            PartitionWatermark watermark = watermarks.get(partition);
+            if (watermark == null) {
+                continue;
+            }
+            watermark.track(record.offset());
+            lanes[laneOf(record)].execute(() -> process(record, partition, watermark));
+        }
+    }
+
+    private int laneOf(ConsumerRecord<String, Object> record) {
+        Object key = record.key() != null ? record.key() : record.partition();
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /**
+     * Processes one record on its lane. The offset is completed however processing ends, except
+     * when a start is given up on shutdown: an exception escaping the lane task would otherwise
+     * hold the partition's watermark, and with it every later commit, until restart.
+     */
+    void process(ConsumerRecord<String, Object> record, TopicPartition partition, PartitionWatermark watermark) {
+        // The partition was revoked while the record was queued; its new owner processes it
+        if (watermarks.get(partition) != watermark) {
+            return;
+        }
+        boolean completed = true;
+        Span span = pipelineTracing.startSpan("file-processing-key-parallel receive", record);
+        try (Tracer.SpanInScope ignored = pipelineTracing.withSpan(span)) {
+            pipelineMetrics.recordConsumeToStart(record.timestamp());
+            pipelineTracing.recordQueueWait(record.timestamp());
+            completed = startWithRetries(record, toMessage(record), span);
+        } catch (RuntimeException e) {
+            span.error(e);
+            log.error("Failed to process record at {}@{}: {}", partition, record.offset(), e.getMessage(), e);
+            deadLetter(record, e);
+        } finally {
+            span.end();
+            if (completed) {
+                watermark.complete(record.offset());
+            }
+        }
+    }
+
+    private static FileProcessingMessage toMessage(ConsumerRecord<String, Object> record) {
+        if (record.value() instanceof FileProcessingMessage message) {
+            return message;
+        }
+        throw new IllegalArgumentException("Not a file processing message: "
+                + (record.value() != null ? record.value().getClass().getName() : "null"));
+    }
+
+    /**
+     * Publishes the record to the dead-letter topic. A failed publication is logged and the record
+     * is skipped, since retrying it here would block every key of the lane.
+     */
+    private void deadLetter(ConsumerRecord<String, Object> record, Exception cause) {
+        try {
+            deadLetterRecoverer.accept(record, cause);
+        } catch (RuntimeException e) {
+            log.error("Failed to dead-letter record at {}-{}@{}, skipping it: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retries a failed start in place, which only holds up the keys of this lane, and then
+     * dead-letters the record so that the watermark can move past it.
+     *
+     * @return false if the record was given up on shutdown and must stay uncommitted
+     */
+    private boolean startWithRetries(ConsumerRecord<String, Object> record, FileProcessingMessage message, Span span) {
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                fileProcessingService.startWorkflow(message);
+                return true;
+            } catch (RuntimeException e) {
+                span.error(e);
+                if (!running) {
+                    log.warn("Leaving fileId={} at {}@{} for redelivery after shutdown: {}",
+                            message.getFileId(), record.partition(), record.offset(), e.getMessage());
+                    return false;
+                }
+                // Without a Temporal client a retry cannot succeed
+                if (attempt >= maxAttempts || e instanceof IllegalStateException) {
+                    log.error("Dead-lettering file processing message after {} attempt(s): fileId={}, partition={}, offset={}, error={}",
+                            attempt, message.getFileId(), record.partition(), record.offset(), e.getMessage(), e);
+                    deadLetter(record, e);
+                    return true;
+                }
+                log.warn("Workflow start attempt {} failed for fileId={}, retrying in {} ms: {}",
+                        attempt, message.getFileId(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Pauses partitions with too many records pending in the lanes and resumes them at half of it.
+     */
+    private void applyBackpressure() {
+        List<TopicPartition> toPause = new ArrayList<>();
+        List<TopicPartition> toResume = new ArrayList<>();
+        watermarks.forEach((partition, watermark) -> {
+            int pending = watermark.pending();
+            if (pending >= maxPendingPerPartition && paused.add(partition)) {
+                toPause.add(partition);
+            } else if (pending <= maxPendingPerPartition / 2 && paused.remove(partition)) {
+                toResume.add(partition);
+            }
+        });
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+            log.warn("Pausing partitions {}: {} or more records pending", toPause, maxPendingPerPartition);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+            log.info("Resuming partitions {}", toResume);
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> advancedOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionWatermark watermark = watermarks.get(partition);
+            long offset = watermark != null ? watermark.advance() : -1;
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        return offsets;
+    }
+
+    private void commitAsync() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = advancedOffsets(watermarks.keySet());
+        if (!offsets.isEmpty()) {
+            // A later commit supersedes a failed one, so failures are only logged
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Failed to commit watermarks {}: {}", committed, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void commitSync(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = advancedOffsets(partitions);
+        if (!offsets.isEmpty()) {
+            try {
+                consumer.commitSync(offsets);
+                log.info("Committed watermarks {}", offsets);
+            } catch (RuntimeException e) {
+                log.warn("Failed to commit watermarks {}: {}", offsets, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits for the lanes to finish what has been dispatched, up to the shutdown timeout.
+     */
+    private void drainLanes() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        try {
+            for (ExecutorService lane : lanes) {
+                lane.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        partitions.forEach(partition -> watermarks.put(partition, new PartitionWatermark()));
+        log.info("Key-parallel consumer assigned {}", partitions);
+    }
+
+    /**
+     * Commits what has completed and forgets the partitions. Records still queued for them are
+     * skipped; records still running are redelivered to the new owner (at-least-once).
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        commitSync(partitions);
+        partitions.forEach(watermarks::remove);
+        paused.removeAll(partitions);
+        log.info("Key-parallel consumer revoked {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        partitions.forEach(watermarks::remove);
+        paused.removeAll(partitions);
+        log.warn("Key-parallel consumer lost {}", partitions);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.kafkaUpload.kafka;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completion state of the dispatched offsets of one partition.
+ * Records complete out of order; the committable offset is the lowest offset still in progress,
+ * so a commit never skips a record that has not been processed (at-least-once).
+ * {@link #track} is called by the polling thread in offset order, {@link #complete} by any worker.
+ */
+public class PartitionWatermark {
+
+    private final ConcurrentSkipListSet<Long> inProgress = new ConcurrentSkipListSet<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long nextOffset = -1;
+    private long lastCommitted = -1;
+
+    public void track(long offset) {
+        inProgress.add(offset);
+        pending.incrementAndGet();
+        nextOffset = offset + 1;
+    }
+
+    public void complete(long offset) {
+        if (inProgress.remove(offset)) {
+            pending.decrementAndGet();
+        }
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * The offset to commit: everything below it has completed. Negative if nothing was tracked.
+     */
+    public long committable() {
+        Long lowest = inProgress.ceiling(Long.MIN_VALUE);
+        return lowest != null ? lowest : nextOffset;
+    }
+
+    /**
+     * Returns the committable offset if it advanced since the last call that returned one.
+     * Polling thread only.
+     *
+     * @return the offset to commit, or -1 if there is nothing new to commit
+     */
+    public long advance() {
+        long committable = committable();
+        if (committable > lastCommitted) {
+            lastCommitted = committable;
+            return committable;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.kafkaUpload.kafka;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Kafka value deserializer reading both {@link PayloadFormat}s, chosen by the
+ * {@link PayloadFormat#HEADER} header of each record. Records without it are JSON.
+ */
+public class PayloadDeserializer implements Deserializer<Object> {
+
+    private static final byte[] COMPACT_HEADER_VALUE = PayloadFormat.COMPACT.name().getBytes(StandardCharsets.UTF_8);
+
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+    private final CompactPayloadCodec codec = new CompactPayloadCodec();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header format = headers.lastHeader(PayloadFormat.HEADER);
+        if (format != null && Arrays.equals(format.value(), COMPACT_HEADER_VALUE)) {
+            return codec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.kafkaUpload.kafka;
+
+/**
+ * Encoding of Kafka record values written by {@link PayloadSerializer}.
+ * Consumers read both formats, chosen per record by the {@link #HEADER} header, so producers
+ * can be switched one at a time.
+ */
+public enum PayloadFormat {
+    /**
+     * Spring's JSON with a type header; records without a format header are JSON.
+     */
+    JSON,
+
+    /**
+     * Schema-versioned binary encoding of {@link CompactPayloadCodec}.
+     */
+    COMPACT;
+
+    /**
+     * Record header carrying the format of the value.
+     */
+    public static final String HEADER = "payload-format";
+
+    /**
+     * Serializer property selecting the format written by producers.
+     */
+    public static final String CONFIG = "payload.format";
+}
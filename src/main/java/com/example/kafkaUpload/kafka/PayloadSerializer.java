@@ -0,0 +1,53 @@
+package com.example.kafkaUpload.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value serializer writing pipeline models in the configured {@link PayloadFormat}.
+ * COMPACT records are tagged with the {@link PayloadFormat#HEADER} header; values the compact
+ * codec does not cover are always written as JSON.
+ */
+public class PayloadSerializer implements Serializer<Object> {
+
+    private static final byte[] COMPACT_HEADER_VALUE = PayloadFormat.COMPACT.name().getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final CompactPayloadCodec codec = new CompactPayloadCodec();
+    private PayloadFormat format = PayloadFormat.JSON;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        Object configured = configs.get(PayloadFormat.CONFIG);
+        if (configured != null) {
+            format = PayloadFormat.valueOf(configured.toString().trim().toUpperCase());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (format == PayloadFormat.COMPACT && data != null && codec.supports(data)) {
+            headers.remove(PayloadFormat.HEADER);
+            headers.add(PayloadFormat.HEADER, COMPACT_HEADER_VALUE);
+            return codec.encode(data);
+        }
+        // Forwarded records (retry topics, DLT) carry the headers of the original record
+        headers.remove(PayloadFormat.HEADER);
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
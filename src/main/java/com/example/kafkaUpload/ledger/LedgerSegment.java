@@ -0,0 +1,203 @@
+package com.example.kafkaUpload.ledger;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * One day of the processing ledger: a memory-mapped file of fixed-width 32-byte records.
+ * <pre>
+ *  0  fileId, most significant bits    (long; non-UUID ids are interned as name-based UUIDs)
+ *  8  fileId, least significant bits   (long)
+ * 16  end time, epoch millis            (long; -1 if unknown)
+ * 24  processing time, millis           (int, saturated)
+ * 28  ProcessingStatus ordinal          (byte)
+ * 29  ScanStatus ordinal                (byte; -1 if the file was not scanned)
+ * 30  completed steps                   (byte; bit per ProcessingStep ordinal)
+ * 31  reserved
+ * </pre>
+ * The header holds a magic number, the record size and the record count, which is written after
+ * the record so that a crash never exposes a partial record. A segment opened for appending keeps
+ * an in-memory index of its fileIds, so a fileId has one record per segment and a repeated result
+ * replaces it in place. Single writer, any number of readers; a reader may see a replaced record
+ * half updated.
+ */
+class LedgerSegment {
+
+    static final int RECORD_BYTES = 32;
+    static final int HEADER_BYTES = 32;
+    private static final int MAGIC = 0x504C4731; // "PLG1"
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int INITIAL_INDEX_SLOTS = 1024;
+
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private volatile long count;
+    // Open addressing by fileId: record index + 1, or 0 for a free slot; writer thread only
+    private int[] index;
+
+    private LedgerSegment(MappedByteBuffer buffer, long capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, RECORD_BYTES);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_BYTES) {
+            throw new IllegalStateException("Not a processing ledger segment");
+        }
+        this.count = Math.min(buffer.getLong(COUNT_OFFSET), capacity);
+    }
+
+    /**
+     * Opens the segment for appending, creating a sparse file of the full capacity if needed.
+     */
+    static LedgerSegment openForAppend(Path file, long capacity) throws IOException {
+        long bytes = HEADER_BYTES + capacity * RECORD_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ledger segment capacity too large: " + capacity);
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            LedgerSegment segment = new LedgerSegment(channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes), capacity);
+            segment.buildIndex();
+            return segment;
+        }
+    }
+
+    /**
+     * Opens an existing segment for scanning.
+     */
+    static LedgerSegment openForRead(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            return new LedgerSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes),
+                    (bytes - HEADER_BYTES) / RECORD_BYTES);
+        }
+    }
+
+    /**
+     * Writes the result as the record of its fileId, replacing an earlier record of the same
+     * fileId or appending a new one; writer thread only.
+     *
+     * @return false if the fileId is new and the segment is full
+     */
+    boolean put(ProcessingResult result) {
+        UUID fileId = internFileId(result.getFileId());
+        long msb = fileId.getMostSignificantBits();
+        long lsb = fileId.getLeastSignificantBits();
+        int slot = slotOf(msb, lsb);
+        if (index[slot] != 0) {
+            writeFields(HEADER_BYTES + (index[slot] - 1) * RECORD_BYTES, result);
+            return true;
+        }
+
+        long record = count;
+        if (record >= capacity) {
+            return false;
+        }
+        int base = HEADER_BYTES + (int) record * RECORD_BYTES;
+        buffer.putLong(base, msb);
+        buffer.putLong(base + 8, lsb);
+        writeFields(base, result);
+        buffer.putLong(COUNT_OFFSET, record + 1);
+        count = record + 1;
+        index[slot] = (int) record + 1;
+        if (count * 2 > index.length) {
+            buildIndex();
+        }
+        return true;
+    }
+
+    private void writeFields(int base, ProcessingResult result) {
+        buffer.putLong(base + 16, result.getEndTime() != null
+                ? result.getEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1);
+        buffer.putInt(base + 24, (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, result.getProcessingTimeMs())));
+        buffer.put(base + 28, result.getStatus() != null ? (byte) result.getStatus().ordinal() : -1);
+        buffer.put(base + 29, result.getScanStatus() != null ? (byte) result.getScanStatus().ordinal() : -1);
+        int steps = 0;
+        if (result.getCompletedSteps() != null) {
+            for (ProcessingResult.ProcessingStep step : result.getCompletedSteps()) {
+                steps |= 1 << step.ordinal();
+            }
+        }
+        buffer.put(base + 30, (byte) steps);
+    }
+
+    /**
+     * Rebuilds the fileId index from the records, sized to stay at most half full.
+     */
+    private void buildIndex() {
+        int slots = INITIAL_INDEX_SLOTS;
+        while (slots < count * 4) {
+            slots <<= 1;
+        }
+        index = new int[slots];
+        for (int i = 0; i < count; i++) {
+            int base = HEADER_BYTES + i * RECORD_BYTES;
+            // A later record of the same fileId wins, as when it replaced the earlier one
+            index[slotOf(buffer.getLong(base), buffer.getLong(base + 8))] = i + 1;
+        }
+    }
+
+    /**
+     * Finds the index slot holding the fileId, or the free slot where it belongs.
+     */
+    private int slotOf(long msb, long lsb) {
+        int mask = index.length - 1;
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (index[slot] != 0) {
+            int base = HEADER_BYTES + (index[slot] - 1) * RECORD_BYTES;
+            if (buffer.getLong(base) == msb && buffer.getLong(base + 8) == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Adds every record written so far to the summary, reading primitives straight from the mapping.
+     */
+    void scan(LedgerSummary summary) {
+        long records = count;
+        ByteBuffer view = buffer.duplicate();
+        for (long i = 0; i < records; i++) {
+            int base = HEADER_BYTES + (int) i * RECORD_BYTES;
+            summary.add(view.get(base + 28), view.get(base + 29), view.getInt(base + 24));
+        }
+    }
+
+    /**
+     * Flushes the written records to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    private static UUID internFileId(String fileId) {
+        if (fileId == null) {
+            return new UUID(0, 0);
+        }
+        try {
+            return UUID.fromString(fileId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(fileId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
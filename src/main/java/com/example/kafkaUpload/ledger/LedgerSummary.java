@@ -0,0 +1,79 @@
+package com.example.kafkaUpload.ledger;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts by {@link ProcessingResult.ProcessingStatus} and {@link ScanResult.ScanStatus}, and the
+ * processing time distribution, of the records scanned from the ledger.
+ */
+class LedgerSummary {
+
+    private static final ProcessingResult.ProcessingStatus[] STATUSES = ProcessingResult.ProcessingStatus.values();
+    private static final ScanResult.ScanStatus[] SCAN_STATUSES = ScanResult.ScanStatus.values();
+    private static final String NOT_SCANNED = "NOT_SCANNED";
+
+    // Indexed by ordinal + 1, so that index 0 counts records without a status
+    private final long[][] counts = new long[STATUSES.length + 1][SCAN_STATUSES.length + 1];
+    private final Histogram processingTimeMs = new Histogram(3);
+    private long records;
+
+    void add(byte status, byte scanStatus, int processingTimeMs) {
+        counts[index(status, STATUSES.length)][index(scanStatus, SCAN_STATUSES.length)]++;
+        this.processingTimeMs.recordValue(Math.max(0, processingTimeMs));
+        records++;
+    }
+
+    long records() {
+        return records;
+    }
+
+    long count(ProcessingResult.ProcessingStatus status, ScanResult.ScanStatus scanStatus) {
+        return counts[status.ordinal() + 1][scanStatus != null ? scanStatus.ordinal() + 1 : 0];
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("records", records);
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Long> byScanStatus = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> byStatusAndScanStatus = new LinkedHashMap<>();
+        for (int s = 0; s < counts.length; s++) {
+            String status = s == 0 ? "UNKNOWN" : STATUSES[s - 1].name();
+            for (int scan = 0; scan < counts[s].length; scan++) {
+                long count = counts[s][scan];
+                if (count == 0) {
+                    continue;
+                }
+                String scanStatus = scan == 0 ? NOT_SCANNED : SCAN_STATUSES[scan - 1].name();
+                byStatus.merge(status, count, Long::sum);
+                byScanStatus.merge(scanStatus, count, Long::sum);
+                byStatusAndScanStatus.computeIfAbsent(status, key -> new LinkedHashMap<>()).put(scanStatus, count);
+            }
+        }
+        summary.put("byStatus", byStatus);
+        summary.put("byScanStatus", byScanStatus);
+        summary.put("byStatusAndScanStatus", byStatusAndScanStatus);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (records > 0) {
+            latency.put("mean", Math.round(processingTimeMs.getMean()));
+            latency.put("p50", processingTimeMs.getValueAtPercentile(50.0));
+            latency.put("p90", processingTimeMs.getValueAtPercentile(90.0));
+            latency.put("p99", processingTimeMs.getValueAtPercentile(99.0));
+            latency.put("p99.9", processingTimeMs.getValueAtPercentile(99.9));
+            latency.put("max", processingTimeMs.getMaxValue());
+        }
+        summary.put("processingTimeMs", latency);
+        return summary;
+    }
+
+    private static int index(byte ordinal, int constants) {
+        return ordinal >= 0 && ordinal < constants ? ordinal + 1 : 0;
+    }
+}
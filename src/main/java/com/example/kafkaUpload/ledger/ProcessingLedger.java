@@ -0,0 +1,262 @@
+package com.example.kafkaUpload.ledger;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ledger of processing results, one memory-mapped {@link LedgerSegment} per UTC day of the
+ * result's end time, holding the latest result of each fileId that ended that day. Like
+ * {@link com.example.kafkaUpload.status.ProcessingStatusStore} it is fed from the compacted
+ * {@code processing-results} topic, which every instance reads in full under a group of its own,
+ * so each instance's ledger covers all results and replays, redeliveries and retried publications
+ * only rewrite the record of their fileId. A single writer thread appends, so the listener never
+ * waits on the disk; results are dropped and counted when a day's segment is full.
+ * Aggregations scan the fixed-width records of a day without creating an object per record.
+ */
+@Slf4j
+@Service
+public class ProcessingLedger extends AbstractConsumerSeekAware {
+
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".ledger";
+    private static final int DRAIN_BATCH = 1024;
+
+    @Value("${file-processing.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file-processing.ledger.directory:./ledger}")
+    private String directory;
+
+    @Value("${file-processing.ledger.records-per-day:8388608}")
+    private long recordsPerDay;
+
+    @Value("${file-processing.ledger.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${file-processing.ledger.retention-days:30}")
+    private int retentionDays;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<Entry> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private LocalDate expiredBefore;
+    private final Map<LocalDate, LedgerSegment> segments = new ConcurrentHashMap<>();
+    private Counter written;
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(Paths.get(directory));
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        written = Counter.builder("file.ledger.records")
+                .tag("outcome", "written")
+                .description("Processing results written to the ledger")
+                .register(meterRegistry);
+        dropped = Counter.builder("file.ledger.records")
+                .tag("outcome", "dropped")
+                .description("Processing results dropped because the day's ledger segment was full")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Processing ledger writing to {} ({} records per day)", directory, recordsPerDay);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Reads the results topic from the beginning under a group of its own, so each instance sees
+     * every partition. The container never acknowledges, so no offsets are committed. Waits while
+     * the writer queue is full, which holds back the poll rather than dropping results.
+     */
+    @KafkaListener(
+        id = "processing-ledger",
+        topics = "${kafka.topic.processing-results:processing-results}",
+        groupId = "processing-ledger-${random.uuid}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "${file-processing.ledger.enabled:true}"
+    )
+    public void onResults(List<ConsumerRecord<String, Object>> records) throws InterruptedException {
+        for (ConsumerRecord<String, Object> record : records) {
+            if (record.value() instanceof ProcessingResult result && result.getFileId() != null) {
+                queue.put(new Entry(dayOf(result, record.timestamp()), result));
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        log.info("Replaying processing results into the ledger from {}", assignments.keySet());
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    /**
+     * Aggregates one day of the ledger.
+     *
+     * @return null if the ledger has no segment for the day
+     */
+    public Map<String, Object> summarize(LocalDate day) throws IOException {
+        LedgerSegment segment = segments.get(day);
+        if (segment == null) {
+            Path file = segmentFile(day);
+            if (!Files.exists(file)) {
+                return null;
+            }
+            segment = LedgerSegment.openForRead(file);
+        }
+
+        long scanStart = System.nanoTime();
+        LedgerSummary summary = new LedgerSummary();
+        segment.scan(summary);
+        Map<String, Object> response = summary.toMap();
+        response.put("date", day.toString());
+        response.put("scanMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scanStart));
+        return response;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                LocalDate oldestKept = expireSegments();
+                for (Entry entry : batch) {
+                    if (entry.day().isBefore(oldestKept)) {
+                        continue;
+                    }
+                    if (segmentFor(entry.day()).put(entry.result())) {
+                        written.increment();
+                    } else {
+                        dropped.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                log.error("Failed to write {} results to the ledger", batch.size(), e);
+                dropped.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+        segments.values().forEach(LedgerSegment::force);
+    }
+
+    private LedgerSegment segmentFor(LocalDate day) throws IOException {
+        LedgerSegment segment = segments.get(day);
+        if (segment == null) {
+            segment = LedgerSegment.openForAppend(segmentFile(day), recordsPerDay);
+            segments.put(day, segment);
+            log.info("Processing ledger segment {} opened with {} records", segmentFile(day), segment.count());
+        }
+        return segment;
+    }
+
+    /**
+     * Once per UTC day, forgets and deletes the segments beyond the retention.
+     *
+     * @return the oldest day still kept
+     */
+    private LocalDate expireSegments() {
+        LocalDate oldestKept = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        if (!oldestKept.equals(expiredBefore)) {
+            segments.keySet().removeIf(day -> day.isBefore(oldestKept));
+            deleteExpiredSegments(oldestKept);
+            expiredBefore = oldestKept;
+        }
+        return oldestKept;
+    }
+
+    /**
+     * The UTC day the result ended, or the day it was published if it has no end time.
+     */
+    private static LocalDate dayOf(ProcessingResult result, long recordTimestamp) {
+        Instant ended = result.getEndTime() != null
+                ? result.getEndTime().atZone(ZoneId.systemDefault()).toInstant()
+                : Instant.ofEpochMilli(recordTimestamp);
+        return LocalDate.ofInstant(ended, ZoneOffset.UTC);
+    }
+
+    private void deleteExpiredSegments(LocalDate oldestKept) {
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                        && parseDay(name).isBefore(oldestKept);
+            }).forEach(file -> {
+                try {
+                    Files.delete(file);
+                    log.info("Deleted expired processing ledger segment {}", file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to delete expired processing ledger segments: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentFile(LocalDate day) {
+        return Paths.get(directory, SEGMENT_PREFIX + day + SEGMENT_SUFFIX);
+    }
+
+    private record Entry(LocalDate day, ProcessingResult result) {
+    }
+
+    private static LocalDate parseDay(String fileName) {
+        try {
+            return LocalDate.parse(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return LocalDate.MAX;
+        }
+    }
+}
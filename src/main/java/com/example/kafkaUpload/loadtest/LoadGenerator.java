@@ -0,0 +1,121 @@
+package com.example.kafkaUpload.loadtest;
+
+import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.service.TestDataGeneratorService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Open-loop load generator for the file processing pipeline.
+ * Messages are sent on a fixed schedule whatever the pipeline's response times, and every latency
+ * is measured from the scheduled send time, which corrects for coordinated omission.
+ */
+@Slf4j
+@Service
+public class LoadGenerator {
+
+    private static final String RESULTS_LISTENER_ID = "load-generator-results";
+
+    @Autowired
+    private TestDataGeneratorService testDataGeneratorService;
+
+    @Autowired
+    private FileProcessingProducer fileProcessingProducer;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Value("${file-processing.test-endpoints.load-test-result-timeout-ms:300000}")
+    private long resultTimeoutMs;
+
+    private volatile LoadRun currentRun;
+
+    /**
+     * Starts a load test.
+     *
+     * @throws IllegalArgumentException if the plan is invalid
+     * @throws IllegalStateException if a load test is already running
+     */
+    public synchronized void start(LoadTestPlan plan) {
+        plan.validate();
+        if (currentRun != null && currentRun.isRunning()) {
+            throw new IllegalStateException("A load test is already running");
+        }
+
+        if (plan.isTrackEndToEnd()) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(RESULTS_LISTENER_ID);
+            if (container != null && !container.isRunning()) {
+                container.start();
+            }
+        }
+
+        currentRun = new LoadRun(plan, testDataGeneratorService::generateRandomFileProcessingMessage,
+                fileProcessingProducer, resultTimeoutMs);
+        currentRun.start();
+    }
+
+    /**
+     * Stops the running load test, if any.
+     *
+     * @return false if no load test was running
+     */
+    public synchronized boolean stop() {
+        LoadRun run = currentRun;
+        if (run == null || !run.isRunning()) {
+            return false;
+        }
+        run.stop();
+        log.info("Load test stopped");
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    /**
+     * Reports the latest load test; each call starts a new reporting interval.
+     *
+     * @return null if no load test has been started
+     */
+    public Map<String, Object> report() {
+        LoadRun run = currentRun;
+        return run != null ? run.report() : null;
+    }
+
+    /**
+     * Matches results to the messages of the current run. Like the status store, every instance
+     * reads under a group of its own and never commits, since only results of its own run count.
+     */
+    @KafkaListener(
+        id = RESULTS_LISTENER_ID,
+        topics = "${kafka.topic.processing-results:processing-results}",
+        groupId = "load-generator-${random.uuid}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "false",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onResults(List<ConsumerRecord<String, Object>> records) {
+        LoadRun run = currentRun;
+        if (run == null) {
+            return;
+        }
+        for (ConsumerRecord<String, Object> record : records) {
+            if (record.value() instanceof ProcessingResult result) {
+                run.recordResult(result.getFileId());
+            }
+        }
+    }
+}
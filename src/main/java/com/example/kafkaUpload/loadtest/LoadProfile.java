@@ -0,0 +1,13 @@
+package com.example.kafkaUpload.loadtest;
+
+/**
+ * Shape of the offered load over the duration of a load test.
+ */
+public enum LoadProfile {
+    /** The target rate from start to end. */
+    CONSTANT,
+    /** A linear ramp from the start rate to the target rate. */
+    RAMP,
+    /** Equal-length steps from the start rate up to the target rate. */
+    STEP
+}
@@ -0,0 +1,290 @@
+package com.example.kafkaUpload.loadtest;
+
+import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * One execution of a {@link LoadTestPlan}.
+ * Producer thread i sends messages i, i + n, i + 2n, ... each at its intended time. Latencies are
+ * measured from the intended time, not from the actual send, so a stalled producer or broker
+ * shows up in the percentiles instead of silently lowering the offered load.
+ * Sends still awaiting their result after the result timeout are counted as without result
+ * and forgotten, so that an open-ended run does not accumulate results that never arrive.
+ */
+@Slf4j
+class LoadRun {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LoadTestPlan plan;
+    private final Supplier<FileProcessingMessage> messageSource;
+    private final FileProcessingProducer producer;
+    private final long resultTimeoutNanos;
+
+    private final long startNanos = System.nanoTime();
+    private final long startEpochMillis = System.currentTimeMillis();
+    private final List<Thread> producerThreads = new ArrayList<>();
+    private volatile boolean stopRequested;
+    private volatile long finishedNanos;
+
+    private final Recorder sendAckLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Recorder uncorrectedSendAckLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Recorder endToEndLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Histogram totalSendAck = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Histogram totalUncorrectedSendAck = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Histogram totalEndToEnd = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private long lastReportNanos = startNanos;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong results = new AtomicLong();
+    private final LongAccumulator maxScheduleLagNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong noResult = new AtomicLong();
+    private final Map<String, Long> awaitingResult = new ConcurrentHashMap<>();
+    // Tracked sends in roughly intended-time order, so expired ones are found without scanning the map
+    private final ConcurrentLinkedQueue<AwaitedResult> awaitingOrder = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock expiryLock = new ReentrantLock();
+
+    private record AwaitedResult(String fileId, long intendedNanos) {
+    }
+
+    LoadRun(LoadTestPlan plan, Supplier<FileProcessingMessage> messageSource, FileProcessingProducer producer,
+            long resultTimeoutMillis) {
+        this.plan = plan;
+        this.messageSource = messageSource;
+        this.producer = producer;
+        this.resultTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(resultTimeoutMillis);
+    }
+
+    void start() {
+        for (int i = 0; i < plan.getProducerThreads(); i++) {
+            final int index = i;
+            // Platform threads: pacing relies on precise parking and spinning
+            Thread thread = new Thread(() -> produce(index), "load-producer-" + i);
+            thread.setDaemon(true);
+            producerThreads.add(thread);
+        }
+        producerThreads.forEach(Thread::start);
+        log.info("Load test started: {}", plan);
+    }
+
+    void stop() {
+        stopRequested = true;
+        producerThreads.forEach(Thread::interrupt);
+        for (Thread thread : producerThreads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    boolean isRunning() {
+        return producerThreads.stream().anyMatch(Thread::isAlive);
+    }
+
+    /**
+     * Records the end-to-end latency of a published result, if it belongs to this run.
+     */
+    void recordResult(String fileId) {
+        Long intendedNanos = fileId != null ? awaitingResult.remove(fileId) : null;
+        if (intendedNanos != null) {
+            endToEndLatency.recordValue(clamp(System.nanoTime() - intendedNanos));
+            results.incrementAndGet();
+        }
+    }
+
+    private void produce(int index) {
+        int threads = plan.getProducerThreads();
+        for (long sequence = index; !stopRequested; sequence += threads) {
+            double offsetSeconds = plan.intendedOffsetSeconds(sequence);
+            if (Double.isInfinite(offsetSeconds)) {
+                break;
+            }
+            long intendedNanos = startNanos + (long) (offsetSeconds * 1e9);
+            if (!waitUntil(intendedNanos)) {
+                break;
+            }
+            maxScheduleLagNanos.accumulate(System.nanoTime() - intendedNanos);
+            send(intendedNanos);
+        }
+        finishedNanos = System.nanoTime();
+    }
+
+    private void send(long intendedNanos) {
+        FileProcessingMessage message = messageSource.get();
+        if (message == null) {
+            failed.incrementAndGet();
+            return;
+        }
+        // The intended send time is the creation time, so pipeline end-to-end metrics are corrected too
+        message.setCreatedAt(toLocalDateTime(intendedNanos));
+        if (plan.isTrackEndToEnd()) {
+            awaitingResult.put(message.getFileId(), intendedNanos);
+            awaitingOrder.add(new AwaitedResult(message.getFileId(), intendedNanos));
+            expireAwaitedResults();
+        }
+
+        long sendNanos = System.nanoTime();
+        sent.incrementAndGet();
+        try {
+            producer.sendFileProcessingRequestQuietly(message).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    failed.incrementAndGet();
+                    awaitingResult.remove(message.getFileId());
+                    return;
+                }
+                long ackNanos = System.nanoTime();
+                sendAckLatency.recordValue(clamp(ackNanos - intendedNanos));
+                uncorrectedSendAckLatency.recordValue(clamp(ackNanos - sendNanos));
+                acked.incrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            awaitingResult.remove(message.getFileId());
+            log.debug("Load test send failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forgets tracked sends whose result is overdue and counts them as without result.
+     * Only one thread expires at a time; the others skip it rather than wait.
+     */
+    private void expireAwaitedResults() {
+        if (!expiryLock.tryLock()) {
+            return;
+        }
+        try {
+            long deadlineNanos = System.nanoTime() - resultTimeoutNanos;
+            AwaitedResult oldest;
+            while ((oldest = awaitingOrder.peek()) != null && oldest.intendedNanos() - deadlineNanos < 0) {
+                awaitingOrder.poll();
+                // Already removed if its result arrived or its send failed
+                if (awaitingResult.remove(oldest.fileId(), oldest.intendedNanos())) {
+                    noResult.incrementAndGet();
+                }
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Parks until shortly before the deadline and spins for the rest.
+     *
+     * @return false if the run was stopped while waiting
+     */
+    private boolean waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (stopRequested) {
+                return false;
+            }
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return !stopRequested;
+    }
+
+    /**
+     * Builds the report: totals since the start and the interval since the previous report.
+     */
+    synchronized Map<String, Object> report() {
+        expireAwaitedResults();
+        long now = isRunning() ? System.nanoTime() : Math.max(finishedNanos, lastReportNanos);
+        double elapsedSeconds = (now - startNanos) / 1e9;
+        double intervalSeconds = (now - lastReportNanos) / 1e9;
+        lastReportNanos = now;
+
+        Histogram intervalSendAck = sendAckLatency.getIntervalHistogram();
+        Histogram intervalEndToEnd = endToEndLatency.getIntervalHistogram();
+        totalSendAck.add(intervalSendAck);
+        totalUncorrectedSendAck.add(uncorrectedSendAckLatency.getIntervalHistogram());
+        totalEndToEnd.add(intervalEndToEnd);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("state", isRunning() ? "RUNNING" : stopRequested ? "STOPPED" : "COMPLETED");
+        report.put("plan", plan);
+        report.put("elapsedSeconds", round(elapsedSeconds));
+        report.put("currentTargetRate", round(plan.rateAt(elapsedSeconds)));
+        report.put("sent", sent.get());
+        report.put("acked", acked.get());
+        report.put("failed", failed.get());
+        report.put("achievedRate", elapsedSeconds > 0 ? round(acked.get() / elapsedSeconds) : 0);
+        report.put("maxScheduleLagMs", round(maxScheduleLagNanos.get() / 1e6));
+        report.put("resultsReceived", results.get());
+        report.put("awaitingResult", awaitingResult.size());
+        report.put("noResult", noResult.get());
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("sendAckLatencyMs", summary(totalSendAck));
+        totals.put("uncorrectedSendAckLatencyMs", summary(totalUncorrectedSendAck));
+        totals.put("endToEndLatencyMs", summary(totalEndToEnd));
+        report.put("total", totals);
+
+        Map<String, Object> interval = new LinkedHashMap<>();
+        interval.put("seconds", round(intervalSeconds));
+        interval.put("ackRate", intervalSeconds > 0 ? round(intervalSendAck.getTotalCount() / intervalSeconds) : 0);
+        interval.put("sendAckLatencyMs", summary(intervalSendAck));
+        interval.put("endToEndLatencyMs", summary(intervalEndToEnd));
+        report.put("interval", interval);
+        return report;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            summary.put("mean", round(histogram.getMean() / 1e6));
+            summary.put("p50", millis(histogram, 50.0));
+            summary.put("p90", millis(histogram, 90.0));
+            summary.put("p99", millis(histogram, 99.0));
+            summary.put("p99.9", millis(histogram, 99.9));
+            summary.put("max", round(histogram.getMaxValue() / 1e6));
+        }
+        return summary;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return round(histogram.getValueAtPercentile(percentile) / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static long clamp(long nanos) {
+        return Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    private LocalDateTime toLocalDateTime(long nanos) {
+        long epochMillis = startEpochMillis + TimeUnit.NANOSECONDS.toMillis(nanos - startNanos);
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.kafkaUpload.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parameters of an open-loop load test. The send time of every message is fixed in advance
+ * by the profile, independent of how fast earlier sends complete.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestPlan {
+    private LoadProfile profile = LoadProfile.CONSTANT;
+
+    /** Messages per second at the end of the test; the whole test for CONSTANT. */
+    private double targetRate = 100;
+
+    /** Messages per second at the start of a RAMP or STEP test. */
+    private double startRate;
+
+    /** Number of steps of a STEP test. */
+    private int steps = 5;
+
+    /** Length of the test; 0 runs a CONSTANT test until it is stopped. */
+    private long durationSeconds = 60;
+
+    private int producerThreads = 4;
+
+    /** Correlates results from the results topic to measure end-to-end latency. */
+    private boolean trackEndToEnd = true;
+
+    public static LoadTestPlan constant(double rate, long durationSeconds) {
+        LoadTestPlan plan = new LoadTestPlan();
+        plan.setTargetRate(rate);
+        plan.setDurationSeconds(durationSeconds);
+        return plan;
+    }
+
+    /**
+     * Checks the plan and throws {@link IllegalArgumentException} if it cannot be run.
+     */
+    public void validate() {
+        if (targetRate <= 0 || startRate < 0) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+        if (producerThreads < 1) {
+            throw new IllegalArgumentException("At least one producer thread is required");
+        }
+        if (durationSeconds < 0 || (profile != LoadProfile.CONSTANT && durationSeconds == 0)) {
+            throw new IllegalArgumentException(profile + " load tests need a duration");
+        }
+        if (profile == LoadProfile.STEP && steps < 1) {
+            throw new IllegalArgumentException("STEP load tests need at least one step");
+        }
+    }
+
+    /**
+     * Offered rate in messages per second at the given time into the test.
+     */
+    public double rateAt(double seconds) {
+        switch (profile) {
+            case RAMP:
+                return startRate + (targetRate - startRate) * Math.min(1.0, seconds / durationSeconds);
+            case STEP:
+                return stepRate(Math.min(steps - 1, (int) (seconds / stepSeconds())));
+            default:
+                return targetRate;
+        }
+    }
+
+    /**
+     * Time into the test, in seconds, at which the message with the given sequence number is due.
+     * Returns {@link Double#POSITIVE_INFINITY} for messages beyond the end of the test.
+     */
+    public double intendedOffsetSeconds(long sequence) {
+        double offset;
+        switch (profile) {
+            case RAMP:
+                offset = rampOffsetSeconds(sequence);
+                break;
+            case STEP:
+                offset = stepOffsetSeconds(sequence);
+                break;
+            default:
+                offset = sequence / targetRate;
+        }
+        return durationSeconds > 0 && offset >= durationSeconds ? Double.POSITIVE_INFINITY : offset;
+    }
+
+    /**
+     * Inverts the messages sent by time t of a linear ramp, r0 * t + a * t^2 / 2.
+     */
+    private double rampOffsetSeconds(long sequence) {
+        double acceleration = (targetRate - startRate) / durationSeconds;
+        if (Math.abs(acceleration) < 1e-9) {
+            return sequence / startRate;
+        }
+        double discriminant = startRate * startRate + 2 * acceleration * sequence;
+        if (discriminant < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (Math.sqrt(discriminant) - startRate) / acceleration;
+    }
+
+    private double stepOffsetSeconds(long sequence) {
+        double stepSeconds = stepSeconds();
+        double messagesBefore = 0;
+        for (int step = 0; step < steps; step++) {
+            double rate = stepRate(step);
+            double messagesInStep = rate * stepSeconds;
+            if (sequence < messagesBefore + messagesInStep) {
+                return step * stepSeconds + (sequence - messagesBefore) / rate;
+            }
+            messagesBefore += messagesInStep;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private double stepSeconds() {
+        return (double) durationSeconds / steps;
+    }
+
+    private double stepRate(int step) {
+        return steps == 1 ? targetRate : startRate + (targetRate - startRate) * step / (steps - 1);
+    }
+}
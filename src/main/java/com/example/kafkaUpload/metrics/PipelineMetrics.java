@@ -0,0 +1,127 @@
+package com.example.kafkaUpload.metrics;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import com.example.kafkaUpload.model.ThumbnailResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage metrics of the file processing pipeline, from Kafka consumption to result publication.
+ * Timers publish percentile histograms so that latency distributions can be aggregated across
+ * instances from the Prometheus endpoint. Starts and completions are counters rather than an
+ * in-flight gauge, because a workflow is often published by a different worker than the instance
+ * that started it; workflows in flight are their difference summed over all instances.
+ */
+@Component
+public class PipelineMetrics {
+
+    private static final String PREFIX = "file.pipeline.";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer consumeToStart;
+    private final Timer scanDuration;
+    private final Timer thumbnailDuration;
+    private final Counter workflowsStarted;
+    // Tagged meters by name and tag value, so the hot path does not rebuild and look them up per call
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.consumeToStart = histogramTimer("consume.to.start",
+                "Delay from the Kafka record timestamp to the workflow start attempt")
+                .register(meterRegistry);
+        this.scanDuration = histogramTimer("scan.duration", "Virus scan activity duration")
+                .register(meterRegistry);
+        this.thumbnailDuration = histogramTimer("thumbnail.duration", "Thumbnail activity duration")
+                .register(meterRegistry);
+        this.workflowsStarted = Counter.builder(PREFIX + "workflows.started")
+                .description("Workflows started by this instance, counting each file of a batch workflow")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time a consumed record waited between being produced and its workflow start.
+     *
+     * @param recordTimestampMillis the Kafka record timestamp
+     */
+    public void recordConsumeToStart(long recordTimestampMillis) {
+        if (recordTimestampMillis > 0) {
+            consumeToStart.record(Math.max(0, System.currentTimeMillis() - recordTimestampMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records the latency of a workflow start call.
+     *
+     * @param startNanos {@link System#nanoTime()} taken before the start call
+     * @param outcome started, duplicate, deduplicated or failed
+     * @param workflows number of files covered by the call, counted as started if the outcome is started
+     */
+    public void recordWorkflowStart(long startNanos, String outcome, int workflows) {
+        timer("workflow.start", "Latency of starting a workflow on the Temporal server", "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if ("started".equals(outcome)) {
+            workflowsStarted.increment(workflows);
+        }
+    }
+
+    public void recordScan(ScanResult result) {
+        String status = result.getStatus() != null ? result.getStatus().toString() : "UNKNOWN";
+        scanDuration.record(result.getScanDurationMs(), TimeUnit.MILLISECONDS);
+        counter("scan.results", "Virus scan results by status", "status", status).increment();
+    }
+
+    public void recordThumbnail(ThumbnailResult result) {
+        String status = result.getStatus() != null ? result.getStatus().toString() : "UNKNOWN";
+        thumbnailDuration.record(result.getProcessingTimeMs(), TimeUnit.MILLISECONDS);
+        counter("thumbnail.results", "Thumbnail results by status", "status", status).increment();
+    }
+
+    /**
+     * Records a published final result: workflow processing time and end-to-end latency
+     * from the creation of the request, and counts the workflow as completed.
+     */
+    public void recordCompletion(ProcessingResult result) {
+        String status = result.getStatus() != null ? result.getStatus().toString() : "UNKNOWN";
+        timer("processing.time", "Workflow processing time of a file", "status", status)
+                .record(result.getProcessingTimeMs(), TimeUnit.MILLISECONDS);
+
+        if (result.getRequestCreatedAt() != null) {
+            Duration endToEnd = Duration.between(result.getRequestCreatedAt(), LocalDateTime.now());
+            timer("end.to.end", "Latency from request creation to result publication", "status", status)
+                    .record(endToEnd.isNegative() ? Duration.ZERO : endToEnd);
+        }
+
+        counter("workflows.completed", "Results published by this instance, by status", "status", status)
+                .increment();
+    }
+
+    private Timer timer(String name, String description, String tagKey, String tagValue) {
+        return timers.computeIfAbsent(name + '|' + tagValue, key -> histogramTimer(name, description)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry));
+    }
+
+    private Counter counter(String name, String description, String tagKey, String tagValue) {
+        return counters.computeIfAbsent(name + '|' + tagValue, key -> Counter.builder(PREFIX + name)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry));
+    }
+
+    private Timer.Builder histogramTimer(String name, String description) {
+        return Timer.builder(PREFIX + name)
+                .description(description)
+                .publishPercentileHistogram();
+    }
+}
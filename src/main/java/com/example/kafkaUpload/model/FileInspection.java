@@ -0,0 +1,23 @@
+package com.example.kafkaUpload.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of the cheap pre-scan checks run as a local activity.
+ * Checksum, image detection and cached verdict are only filled in for files
+ * at or below the local activity size threshold.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FileInspection {
+    private boolean exists;
+    private long sizeBytes;
+    private Boolean image;
+    private String checksum;
+    private ScanResult cachedVerdict;
+}
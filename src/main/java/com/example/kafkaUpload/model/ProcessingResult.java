@@ -22,6 +22,8 @@ public class ProcessingResult {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private long processingTimeMs;
+    private LocalDateTime requestCreatedAt;
+    private ScanResult.ScanStatus scanStatus;
     
     public enum ProcessingStatus {
         STARTED,
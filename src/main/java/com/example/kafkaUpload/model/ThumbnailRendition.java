@@ -0,0 +1,27 @@
+package com.example.kafkaUpload.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ThumbnailRendition {
+    private String name;
+    private int maxWidth;
+    private int maxHeight;
+    private String thumbnailPath;
+    private int width;
+    private int height;
+    private long size;
+    private String format;
+
+    public ThumbnailRendition(String name, int maxWidth, int maxHeight) {
+        this.name = name;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+}
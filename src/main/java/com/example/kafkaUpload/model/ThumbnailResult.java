@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -23,6 +25,7 @@ public class ThumbnailResult {
     private LocalDateTime creationTime;
     private long processingTimeMs;
     private String errorMessage;
+    private List<ThumbnailRendition> renditions = new ArrayList<>();
     
     public enum ThumbnailStatus {
         CREATED,
@@ -0,0 +1,207 @@
+package com.example.kafkaUpload.service;
+
+import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Submits many file processing requests from one streamed request body.
+ * The body is an NDJSON stream or a JSON array of {@link FileProcessingMessage}s and is parsed
+ * one item at a time. Sends are pipelined with at most max-in-flight unacknowledged, and one
+ * NDJSON result line per item is streamed back in input order, followed by a summary line.
+ */
+@Slf4j
+@Service
+public class BulkSubmissionService {
+
+    @Autowired
+    private FileProcessingProducer fileProcessingProducer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${file-processing.bulk.max-in-flight:1000}")
+    private int maxInFlight;
+
+    /**
+     * An item awaiting its result line: a send, or a rejection queued behind earlier sends.
+     */
+    private record Pending(long index, String fileId, CompletableFuture<?> send, String rejection) {
+
+        static Pending rejected(long index, String fileId, String rejection) {
+            return new Pending(index, fileId, CompletableFuture.completedFuture(null), rejection);
+        }
+    }
+
+    private static final class Tally {
+        long accepted;
+        long rejected;
+    }
+
+    /**
+     * Counts of one bulk submission.
+     */
+    public record Summary(long accepted, long rejected) {
+    }
+
+    public Summary submit(InputStream body, OutputStream out) throws IOException {
+        Deque<Pending> pending = new ArrayDeque<>();
+        Tally tally = new Tally();
+
+        try (JsonGenerator results = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            // One result object per line; the response stream is closed by the container
+            results.setRootValueSeparator(null);
+            results.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            long index = 0;
+            try {
+                // A top-level array is unwrapped; otherwise every root value is an item
+                while (items.hasNextValue()) {
+                    JsonNode item = items.nextValue();
+                    String rejection = submitItem(item, index, pending, results, tally);
+                    if (rejection != null) {
+                        // Queued rather than written, so that its line follows those of earlier items
+                        pending.addLast(Pending.rejected(index, textOrNull(item, "fileId"), rejection));
+                    }
+                    while (!pending.isEmpty() && pending.peekFirst().send().isDone()) {
+                        complete(results, pending.removeFirst(), tally);
+                    }
+                    index++;
+                }
+            } catch (JsonProcessingException e) {
+                // Malformed JSON ends the stream; items read so far are still reported
+                log.warn("Bulk submission body is malformed after {} items: {}", index, e.getOriginalMessage());
+                while (!pending.isEmpty()) {
+                    complete(results, pending.removeFirst(), tally);
+                }
+                results.writeStartObject();
+                results.writeNumberField("index", index);
+                results.writeStringField("status", "aborted");
+                results.writeStringField("error", e.getOriginalMessage());
+                results.writeEndObject();
+                results.writeRaw('\n');
+            }
+
+            while (!pending.isEmpty()) {
+                complete(results, pending.removeFirst(), tally);
+            }
+            results.writeStartObject();
+            results.writeStringField("status", "summary");
+            results.writeNumberField("accepted", tally.accepted);
+            results.writeNumberField("rejected", tally.rejected);
+            results.writeEndObject();
+            results.writeRaw('\n');
+        }
+
+        log.info("Bulk submission finished: accepted={}, rejected={}", tally.accepted, tally.rejected);
+        return new Summary(tally.accepted, tally.rejected);
+    }
+
+    /**
+     * Converts, validates and sends one item, first waiting for the oldest send if
+     * max-in-flight sends are outstanding.
+     *
+     * @return the rejection reason, or null if the item was sent
+     */
+    private String submitItem(JsonNode item, long index, Deque<Pending> pending, JsonGenerator results,
+                              Tally tally) throws IOException {
+        if (item == null || !item.isObject()) {
+            return "Item must be a JSON object";
+        }
+        FileProcessingMessage message;
+        try {
+            message = toMessage(item);
+        } catch (JsonProcessingException e) {
+            return "Invalid item: " + e.getOriginalMessage();
+        }
+        if (message.getFilePath() == null || message.getFilePath().isBlank()) {
+            return "filePath is required";
+        }
+
+        if (pending.size() >= maxInFlight) {
+            results.flush();
+            complete(results, pending.removeFirst(), tally);
+        }
+        try {
+            pending.addLast(new Pending(index, message.getFileId(),
+                    fileProcessingProducer.sendFileProcessingRequestQuietly(message), null));
+            return null;
+        } catch (RuntimeException e) {
+            return "Send failed: " + e.getMessage();
+        }
+    }
+
+    private FileProcessingMessage toMessage(JsonNode item) throws JsonProcessingException {
+        FileProcessingMessage message = objectMapper.treeToValue(item, FileProcessingMessage.class);
+        if (message.getFileId() == null || message.getFileId().isBlank()) {
+            message.setFileId(UUID.randomUUID().toString());
+        }
+        if (message.getCreatedAt() == null) {
+            message.setCreatedAt(LocalDateTime.now());
+        }
+        return message;
+    }
+
+    /**
+     * Waits for the send and writes its result line.
+     */
+    private void complete(JsonGenerator results, Pending pending, Tally tally) throws IOException {
+        if (pending.rejection() != null) {
+            writeRejection(results, pending.index(), pending.fileId(), pending.rejection());
+            tally.rejected++;
+            return;
+        }
+        try {
+            pending.send().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            writeRejection(results, pending.index(), pending.fileId(), "Send failed: " + cause.getMessage());
+            tally.rejected++;
+            return;
+        }
+        results.writeStartObject();
+        results.writeNumberField("index", pending.index());
+        results.writeStringField("fileId", pending.fileId());
+        results.writeStringField("status", "accepted");
+        results.writeEndObject();
+        results.writeRaw('\n');
+        tally.accepted++;
+    }
+
+    private void writeRejection(JsonGenerator results, long index, String fileId, String error) throws IOException {
+        results.writeStartObject();
+        results.writeNumberField("index", index);
+        if (fileId != null) {
+            results.writeStringField("fileId", fileId);
+        }
+        results.writeStringField("status", "rejected");
+        results.writeStringField("error", error);
+        results.writeEndObject();
+        results.writeRaw('\n');
+    }
+
+    private static String textOrNull(JsonNode item, String field) {
+        JsonNode value = item != null ? item.get(field) : null;
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+}
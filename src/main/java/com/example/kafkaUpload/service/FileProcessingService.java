@@ -1,17 +1,35 @@
 package com.example.kafkaUpload.service;
 
+import com.example.kafkaUpload.dedup.RecentFileIdFilter;
 import com.example.kafkaUpload.kafka.FileProcessingProducer;
+import com.example.kafkaUpload.metrics.PipelineMetrics;
 import com.example.kafkaUpload.model.FileProcessingMessage;
 import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.tracing.PipelineTracing;
+import com.example.kafkaUpload.workflow.FileBatchProcessingWorkflow;
 import com.example.kafkaUpload.workflow.FileProcessingWorkflow;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
 import io.temporal.client.WorkflowOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -28,11 +46,31 @@ public class FileProcessingService {
     @Autowired
     private FileProcessingProducer fileProcessingProducer;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PipelineTracing pipelineTracing;
+
+    @Autowired
+    private RecentFileIdFilter recentFileIdFilter;
+
+    @Autowired
+    @Qualifier("fileProcessingExecutor")
+    private AsyncTaskExecutor fileProcessingExecutor;
+
     @Value("${temporal.task-queue:file-processing-queue}")
     private String taskQueue;
 
+    @Value("${temporal.workflow.start-mode:sync}")
+    private String startMode;
+
     /**
      * Starts a Temporal workflow for file processing.
+     * In {@code async} start mode the returned future completes as soon as Temporal accepts the
+     * start, with a {@code STARTED} result; the workflow publishes its final result itself.
+     * In {@code sync} mode the future completes when the workflow finishes; a duplicate
+     * request waits for the workflow already started for its fileId.
      * 
      * @param message the file processing message
      * @return the processing result
@@ -51,48 +89,228 @@ public class FileProcessingService {
             return CompletableFuture.completedFuture(result);
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Create workflow options (search attributes will be set at workflow completion)
-                WorkflowOptions options = WorkflowOptions.newBuilder()
-                        .setTaskQueue(taskQueue)
-                        .setWorkflowId("file-processing-" + message.getFileId())
-                        .setWorkflowExecutionTimeout(Duration.ofMinutes(10))
-                        .setWorkflowTaskTimeout(Duration.ofMinutes(1))
-                        .build();
+        if (isAsyncStartMode()) {
+            return CompletableFuture.completedFuture(startWorkflowAsync(message));
+        }
 
-                // Create workflow stub
-                FileProcessingWorkflow workflow = workflowClient.newWorkflowStub(
-                        FileProcessingWorkflow.class, options);
+        try {
+            startWorkflow(message);
+        } catch (Exception e) {
+            log.error("Failed to start file processing workflow for fileId: {}, error: {}",
+                    message.getFileId(), e.getMessage(), e);
+            return CompletableFuture.completedFuture(
+                    publishStartFailure(message, "Workflow start failed: " + e.getMessage()));
+        }
+        return awaitWorkflowResult(message);
+    }
 
-                // Start workflow execution
-                ProcessingResult result = workflow.processFile(message);
+    /**
+     * Waits on the file processing executor for the run of the message's fileId to complete.
+     * The returned future never fails; if waiting fails, a failed result is published and returned.
+     *
+     * @param message the file processing message whose workflow was started
+     */
+    public CompletableFuture<ProcessingResult> awaitWorkflowResult(FileProcessingMessage message) {
+        return CompletableFuture.supplyAsync(pipelineTracing.inCurrentSpan(() -> {
+            try {
+                ProcessingResult result = workflowClient.newUntypedWorkflowStub(workflowId(message))
+                        .getResult(ProcessingResult.class);
 
                 log.info("File processing workflow completed for fileId: {}, status: {}", 
                         message.getFileId(), result.getStatus());
 
-                // Publish result to Kafka
-                fileProcessingProducer.publishProcessingResult(result);
-
+                // The workflow publishes its own result to Kafka
                 return result;
 
             } catch (Exception e) {
                 log.error("Error in file processing workflow for fileId: {}, error: {}", 
                         message.getFileId(), e.getMessage(), e);
+                return publishStartFailure(message, "Workflow execution failed: " + e.getMessage());
+            }
+        }), fileProcessingExecutor);
+    }
+
+    /**
+     * Starts the workflow without waiting for it to complete.
+     * Returns once the start has been accepted by the Temporal server.
+     */
+    private ProcessingResult startWorkflowAsync(FileProcessingMessage message) {
+        try {
+            startWorkflow(message);
+
+            ProcessingResult result = new ProcessingResult();
+            result.setFileId(message.getFileId());
+            result.setFilePath(message.getFilePath());
+            result.setStatus(ProcessingResult.ProcessingStatus.STARTED);
+            result.setStartTime(LocalDateTime.now());
+            return result;
+
+        } catch (Exception e) {
+            log.error("Failed to start file processing workflow for fileId: {}, error: {}", 
+                    message.getFileId(), e.getMessage(), e);
+            return publishStartFailure(message, "Workflow start failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts the workflow and returns as soon as the Temporal server accepts the start.
+     * A workflow that was already started for the same fileId counts as accepted.
+     * Unlike {@link #startFileProcessingWorkflow}, failures are thrown to the caller.
+     *
+     * @param message the file processing message
+     */
+    public void startWorkflow(FileProcessingMessage message) {
+        if (workflowClient == null) {
+            throw new IllegalStateException("Temporal workflow engine not available");
+        }
+
+        long startNanos = System.nanoTime();
+        if (recentFileIdFilter.check(message.getFileId()) == RecentFileIdFilter.Verdict.DUPLICATE) {
+            // Started by this instance within the dedup window; skip the start RPC
+            pipelineMetrics.recordWorkflowStart(startNanos, "deduplicated", 1);
+            log.info("Dropping duplicate file processing request for fileId: {}", message.getFileId());
+            return;
+        }
 
-                // Create error result
-                ProcessingResult errorResult = new ProcessingResult();
-                errorResult.setFileId(message.getFileId());
-                errorResult.setFilePath(message.getFilePath());
-                errorResult.setStatus(ProcessingResult.ProcessingStatus.FAILED);
-                errorResult.setErrorMessage("Workflow execution failed: " + e.getMessage());
+        // Parent of the activity spans; the trace context travels in the workflow start headers
+        Span span = pipelineTracing.startSpan("temporal.workflow.start");
+        try (Tracer.SpanInScope ignored = pipelineTracing.withSpan(span)) {
+            FileProcessingWorkflow workflow = newWorkflowStub(message);
+            WorkflowExecution execution = WorkflowClient.start(workflow::processFile, message);
+            pipelineMetrics.recordWorkflowStart(startNanos, "started", 1);
+            recentFileIdFilter.recordStarted(message.getFileId());
 
-                // Publish error result
-                fileProcessingProducer.publishProcessingResult(errorResult);
+            log.info("File processing workflow started for fileId: {}, runId: {}", 
+                    message.getFileId(), execution.getRunId());
 
-                return errorResult;
+        } catch (WorkflowExecutionAlreadyStarted e) {
+            // Redelivered message - the original workflow is already running or finished
+            pipelineMetrics.recordWorkflowStart(startNanos, "duplicate", 1);
+            recentFileIdFilter.recordStarted(message.getFileId());
+            log.info("File processing workflow already started for fileId: {}", message.getFileId());
+        } catch (RuntimeException e) {
+            pipelineMetrics.recordWorkflowStart(startNanos, "failed", 1);
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Starts one batch workflow for a group of files and returns as soon as the Temporal
+     * server accepts the start. The workflow publishes one result per file.
+     * Files this instance started recently are dropped first, as in {@link #startWorkflow}.
+     * A batch workflow that was already started for the same set of files counts as accepted.
+     * Unlike {@link #startWorkflow}, this gives no per-file start guarantee: a file redelivered
+     * in a different group is processed again.
+     *
+     * @param messages the file processing messages of the batch
+     */
+    public void startBatchWorkflow(List<FileProcessingMessage> messages) {
+        if (workflowClient == null) {
+            throw new IllegalStateException("Temporal workflow engine not available");
+        }
+
+        long startNanos = System.nanoTime();
+        Map<String, FileProcessingMessage> byFileId = new LinkedHashMap<>();
+        for (FileProcessingMessage message : messages) {
+            if (recentFileIdFilter.check(message.getFileId()) != RecentFileIdFilter.Verdict.DUPLICATE) {
+                byFileId.putIfAbsent(message.getFileId(), message);
             }
-        });
+        }
+        int dropped = messages.size() - byFileId.size();
+        if (dropped > 0) {
+            pipelineMetrics.recordWorkflowStart(startNanos, "deduplicated", dropped);
+            log.info("Dropping {} duplicate file processing request(s) from batch of {}", dropped, messages.size());
+        }
+        if (byFileId.isEmpty()) {
+            return;
+        }
+        List<FileProcessingMessage> batch = List.copyOf(byFileId.values());
+
+        String workflowId = batchWorkflowId(byFileId.keySet());
+        WorkflowOptions options = WorkflowOptions.newBuilder()
+                .setTaskQueue(taskQueue)
+                .setWorkflowId(workflowId)
+                .setWorkflowExecutionTimeout(Duration.ofMinutes(30))
+                .setWorkflowTaskTimeout(Duration.ofMinutes(1))
+                .build();
+
+        Span span = pipelineTracing.startSpan("temporal.workflow.start");
+        try (Tracer.SpanInScope ignored = pipelineTracing.withSpan(span)) {
+            FileBatchProcessingWorkflow workflow = workflowClient.newWorkflowStub(FileBatchProcessingWorkflow.class, options);
+            WorkflowExecution execution = WorkflowClient.start(workflow::processBatch, batch);
+            pipelineMetrics.recordWorkflowStart(startNanos, "started", batch.size());
+            byFileId.keySet().forEach(recentFileIdFilter::recordStarted);
+
+            log.info("Batch processing workflow started for {} files: workflowId={}, runId={}", 
+                    batch.size(), workflowId, execution.getRunId());
+
+        } catch (WorkflowExecutionAlreadyStarted e) {
+            pipelineMetrics.recordWorkflowStart(startNanos, "duplicate", batch.size());
+            byFileId.keySet().forEach(recentFileIdFilter::recordStarted);
+            log.info("Batch processing workflow already started: workflowId={}", workflowId);
+        } catch (RuntimeException e) {
+            pipelineMetrics.recordWorkflowStart(startNanos, "failed", batch.size());
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Derives the batch workflow id from the whole set of fileIds, independent of their order,
+     * so a redelivered group with exactly the same files maps to the same workflow. A group
+     * that differs by even one file gets a new workflow, which processes its files again.
+     */
+    static String batchWorkflowId(Collection<String> fileIds) {
+        String joined = String.join(",", new TreeSet<>(fileIds));
+        return "file-batch-" + UUID.nameUUIDFromBytes(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FileProcessingWorkflow newWorkflowStub(FileProcessingMessage message) {
+        // Create workflow options (search attributes will be set at workflow completion)
+        WorkflowOptions options = WorkflowOptions.newBuilder()
+                .setTaskQueue(taskQueue)
+                .setWorkflowId(workflowId(message))
+                .setWorkflowExecutionTimeout(Duration.ofMinutes(10))
+                .setWorkflowTaskTimeout(Duration.ofMinutes(1))
+                .build();
+
+        return workflowClient.newWorkflowStub(FileProcessingWorkflow.class, options);
+    }
+
+    private static String workflowId(FileProcessingMessage message) {
+        return "file-processing-" + message.getFileId();
+    }
+
+    /**
+     * Publishes an error result for a workflow that never got to publish its own.
+     *
+     * @param message the file processing message
+     * @param errorMessage the reason the workflow did not run
+     * @return the published error result
+     */
+    public ProcessingResult publishStartFailure(FileProcessingMessage message, String errorMessage) {
+        ProcessingResult errorResult = new ProcessingResult();
+        errorResult.setFileId(message.getFileId());
+        errorResult.setFilePath(message.getFilePath());
+        errorResult.setRequestCreatedAt(message.getCreatedAt());
+        errorResult.setStatus(ProcessingResult.ProcessingStatus.FAILED);
+        errorResult.setErrorMessage(errorMessage);
+
+        fileProcessingProducer.publishProcessingResult(errorResult);
+
+        return errorResult;
+    }
+
+    /**
+     * Whether workflows are started without waiting for their completion.
+     */
+    public boolean isAsyncStartMode() {
+        return "async".equalsIgnoreCase(startMode);
     }
 
     /**
@@ -3,10 +3,14 @@ package com.example.kafkaUpload.service;
 import com.example.kafkaUpload.model.FileProcessingMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,9 +21,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Service for generating test data and sample files.
@@ -35,8 +37,14 @@ public class TestDataGeneratorService {
     @Value("${file-processing.test-data-directory:./test-data}")
     private String testDataDirectory;
 
+    @Autowired
+    @Qualifier("fileProcessingExecutor")
+    private AsyncTaskExecutor fileProcessingExecutor;
+
     private final Random random = new Random();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    // Sample files, listed once per generation instead of once per message
+    private volatile List<Path> sampleFiles = List.of();
 
     // Sample file types for testing
     private final List<String> imageExtensions = Arrays.asList("jpg", "jpeg", "png", "gif", "bmp", "tiff", "webp");
@@ -72,9 +80,11 @@ public class TestDataGeneratorService {
         log.info("Generating sample files in directory: {}", testDataDirectory);
 
         try {
-            // Generate sample image files
+            // Generate sample image files (real images where ImageIO can encode the format)
             for (String ext : imageExtensions) {
-                createSampleFile("sample_image." + ext, "This is a sample " + ext.toUpperCase() + " image file for testing.", 1024 * 50); // 50KB
+                if (!createSampleImage("sample_image." + ext, ext, 1024, 768)) {
+                    createSampleFile("sample_image." + ext, "This is a sample " + ext.toUpperCase() + " image file for testing.", 1024 * 50); // 50KB
+                }
             }
 
             // Generate sample document files
@@ -83,9 +93,12 @@ public class TestDataGeneratorService {
             }
 
             // Generate some larger files
-            createSampleFile("large_image.jpg", "This is a large image file for testing.", 1024 * 1024 * 2); // 2MB
+            if (!createSampleImage("large_image.jpg", "jpg", 3000, 2000)) { // ~2MB JPEG
+                createSampleFile("large_image.jpg", "This is a large image file for testing.", 1024 * 1024 * 2); // 2MB
+            }
             createSampleFile("large_document.pdf", "This is a large document file for testing.", 1024 * 1024 * 3); // 3MB
 
+            sampleFiles = listSampleFiles();
             log.info("Sample files generated successfully");
 
         } catch (Exception e) {
@@ -113,21 +126,44 @@ public class TestDataGeneratorService {
         log.debug("Created sample file: {} (size: {} bytes)", fileName, Files.size(filePath));
     }
 
+    /**
+     * Creates a sample image with a gradient and noise so that it compresses like a photo.
+     *
+     * @return false if ImageIO has no writer for the format
+     */
+    private boolean createSampleImage(String fileName, String format, int width, int height) throws IOException {
+        if (!ImageIO.getImageWritersBySuffix(format).hasNext()) {
+            return false;
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(64);
+                int r = Math.min(255, x * 192 / width + noise);
+                int g = Math.min(255, y * 192 / height + noise);
+                int b = Math.min(255, (x + y) * 96 / (width + height) + noise);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+
+        Path filePath = Paths.get(testDataDirectory, fileName);
+        if (!ImageIO.write(image, format, filePath.toFile())) {
+            return false;
+        }
+        log.debug("Created sample image: {} ({}x{}, size: {} bytes)", fileName, width, height, Files.size(filePath));
+        return true;
+    }
+
     /**
      * Generates a random file processing message using existing sample files.
      */
     public FileProcessingMessage generateRandomFileProcessingMessage() {
         try {
-            // Get list of sample files
-            List<Path> sampleFiles = Files.list(Paths.get(testDataDirectory))
-                    .filter(Files::isRegularFile)
-                    .toList();
-
+            List<Path> sampleFiles = this.sampleFiles;
             if (sampleFiles.isEmpty()) {
                 generateSampleFiles();
-                sampleFiles = Files.list(Paths.get(testDataDirectory))
-                        .filter(Files::isRegularFile)
-                        .toList();
+                sampleFiles = this.sampleFiles;
             }
 
             // Select a random file
@@ -141,6 +177,15 @@ public class TestDataGeneratorService {
         }
     }
 
+    /**
+     * Lists the regular files in the test data directory.
+     */
+    private List<Path> listSampleFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(testDataDirectory))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
     /**
      * Creates a file processing message for the specified file.
      */
@@ -176,44 +221,11 @@ public class TestDataGeneratorService {
                     FileProcessingMessage message = generateRandomFileProcessingMessage();
                     if (message != null) {
                         fileProcessingService.triggerFileProcessing(message);
-                        
-                        // Add small delay to avoid overwhelming the system
-                        if (i < batchSize - 1) {
-                            Thread.sleep(100); // 100ms delay between messages
-                        }
                     }
                 } catch (Exception e) {
                     log.error("Failed to generate/send file processing message {}", i, e);
                 }
             }
-        });
-    }
-
-    /**
-     * Starts continuous generation of file processing messages for load testing.
-     */
-    public void startContinuousGeneration(int messagesPerSecond) {
-        log.info("Starting continuous generation at {} messages per second", messagesPerSecond);
-
-        long delayMs = 1000 / messagesPerSecond;
-        
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                FileProcessingMessage message = generateRandomFileProcessingMessage();
-                if (message != null) {
-                    fileProcessingService.triggerFileProcessing(message);
-                }
-            } catch (Exception e) {
-                log.error("Error in continuous generation", e);
-            }
-        }, 0, delayMs, TimeUnit.MILLISECONDS);
-    }
-
-    /**
-     * Stops continuous generation.
-     */
-    public void stopContinuousGeneration() {
-        log.info("Stopping continuous generation");
-        scheduler.shutdown();
+        }, fileProcessingExecutor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.example.kafkaUpload.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares how many blocking file tasks can be in flight at once, and what each costs in memory,
+ * on platform threads and on virtual threads. Every task parks for the hold time the way scans
+ * and thumbnails block on file I/O. The number of tasks is capped by
+ * {@code file-processing.test-endpoints.thread-capacity-max-in-flight}.
+ */
+@Slf4j
+@Service
+public class ThreadCapacityProbe {
+
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${file-processing.test-endpoints.thread-capacity-max-in-flight:4000}")
+    private int maxInFlight;
+
+    /**
+     * Runs the probe once per thread mode.
+     *
+     * @param inFlight number of concurrent tasks to attempt, capped at the configured maximum
+     * @param holdMs how long each task stays blocked
+     * @return the measurements of both modes and the mode the application runs in
+     */
+    public Map<String, Object> compare(int inFlight, long holdMs) {
+        if (inFlight < 1) {
+            throw new IllegalArgumentException("inFlight must be positive, got " + inFlight);
+        }
+        int capped = Math.min(inFlight, maxInFlight);
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("activeMode", virtualThreads ? "virtual" : "platform");
+        comparison.put("inFlightRequested", inFlight);
+        comparison.put("inFlightMax", maxInFlight);
+        comparison.put("holdMs", holdMs);
+
+        CustomizableThreadFactory platformFactory = new CustomizableThreadFactory("capacity-platform-");
+        platformFactory.setDaemon(true);
+        comparison.put("platform", measure(platformFactory, capped, holdMs));
+
+        ThreadFactory virtualFactory;
+        try {
+            virtualFactory = new VirtualThreadTaskExecutor("capacity-virtual-").getVirtualThreadFactory();
+        } catch (UnsupportedOperationException e) {
+            Map<String, Object> unsupported = new LinkedHashMap<>();
+            unsupported.put("supported", false);
+            unsupported.put("reason", e.getMessage());
+            comparison.put("virtual", unsupported);
+            return comparison;
+        }
+        comparison.put("virtual", measure(virtualFactory, capped, holdMs));
+        return comparison;
+    }
+
+    private Map<String, Object> measure(ThreadFactory threadFactory, int inFlight, long holdMs) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger blocked = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>(inFlight);
+
+        memory.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long residentBefore = residentSetSize();
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < inFlight; i++) {
+            Thread thread = threadFactory.newThread(() -> {
+                blocked.incrementAndGet();
+                try {
+                    release.await(holdMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(holdMs);
+        while (blocked.get() < threads.size() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        long rampUpMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int reached = blocked.get();
+
+        long heapDelta = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        long residentAfter = residentSetSize();
+
+        release.countDown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("supported", true);
+        result.put("inFlightReached", reached);
+        result.put("rampUpMs", rampUpMs);
+        result.put("heapBytesPerFile", reached > 0 ? heapDelta / reached : 0);
+        result.put("residentBytesPerFile", reached > 0 && residentBefore >= 0 && residentAfter >= 0
+                ? (residentAfter - residentBefore) / reached : -1);
+        return result;
+    }
+
+    /**
+     * Resident set size of the process in bytes, which includes native thread stacks; -1 where unavailable.
+     */
+    private long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    String[] fields = line.trim().split("\\s+");
+                    return Long.parseLong(fields[1]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Resident set size unavailable: {}", e.getMessage());
+        }
+        return -1;
+    }
+}
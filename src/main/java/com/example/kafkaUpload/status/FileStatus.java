@@ -0,0 +1,20 @@
+package com.example.kafkaUpload.status;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Latest known outcome of a file, as served by the status endpoints.
+ *
+ * @param endTime when processing ended, or null if the result had no end time
+ */
+public record FileStatus(
+        String fileId,
+        ProcessingResult.ProcessingStatus status,
+        List<ProcessingResult.ProcessingStep> completedSteps,
+        String errorMessage,
+        Instant endTime,
+        long processingTimeMs) {
+}
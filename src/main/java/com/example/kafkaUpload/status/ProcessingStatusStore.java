@@ -0,0 +1,155 @@
+package com.example.kafkaUpload.status;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local view of the latest processing result per fileId, materialized from the compacted
+ * {@code processing-results} topic. Every instance reads every partition from the beginning on
+ * startup and never commits, so the view is rebuilt from Kafka rather than persisted.
+ * Entries hold primitives only, apart from the key and a possible error message, and the
+ * least recently updated fileIds are evicted beyond {@code file-processing.status-store.max-entries}.
+ */
+@Slf4j
+@Service
+public class ProcessingStatusStore extends AbstractConsumerSeekAware {
+
+    private static final ProcessingResult.ProcessingStatus[] STATUSES = ProcessingResult.ProcessingStatus.values();
+    private static final ProcessingResult.ProcessingStep[] STEPS = ProcessingResult.ProcessingStep.values();
+
+    private final Map<String, Entry> entries;
+
+    public ProcessingStatusStore(MeterRegistry meterRegistry,
+                                 @Value("${file-processing.status-store.max-entries:1000000}") int maxEntries) {
+        entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        Gauge.builder("file.status.store.entries", this, ProcessingStatusStore::size)
+                .description("fileIds held by the processing status store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads the results topic from the beginning under a group of its own, so each instance sees
+     * every partition. The container never acknowledges, so no offsets are committed.
+     */
+    @KafkaListener(
+        id = "processing-status-store",
+        topics = "${kafka.topic.processing-results:processing-results}",
+        groupId = "processing-status-store-${random.uuid}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "${file-processing.status-store.enabled:true}"
+    )
+    public void onResults(List<ConsumerRecord<String, Object>> records) {
+        for (ConsumerRecord<String, Object> record : records) {
+            if (record.value() == null) {
+                remove(record.key());
+            } else if (record.value() instanceof ProcessingResult result) {
+                apply(result);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        log.info("Rebuilding processing status store from {}", assignments.keySet());
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    /**
+     * Replaces the status of the result's fileId; later results of a fileId win, like in the compacted topic.
+     */
+    public void apply(ProcessingResult result) {
+        if (result.getFileId() == null || result.getStatus() == null) {
+            return;
+        }
+        int steps = 0;
+        if (result.getCompletedSteps() != null) {
+            for (ProcessingResult.ProcessingStep step : result.getCompletedSteps()) {
+                steps |= 1 << step.ordinal();
+            }
+        }
+        long endTime = result.getEndTime() != null
+                ? result.getEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        Entry entry = new Entry((byte) result.getStatus().ordinal(), (byte) steps,
+                result.getErrorMessage(), endTime, result.getProcessingTimeMs());
+        synchronized (this) {
+            // Re-inserted so that the eldest entry is always the least recently updated
+            entries.remove(result.getFileId());
+            entries.put(result.getFileId(), entry);
+        }
+    }
+
+    public synchronized void remove(String fileId) {
+        if (fileId != null) {
+            entries.remove(fileId);
+        }
+    }
+
+    /**
+     * @return the latest status of the file, or null if no result for it is held
+     */
+    public FileStatus get(String fileId) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(fileId);
+        }
+        return entry != null ? entry.toStatus(fileId) : null;
+    }
+
+    /**
+     * Looks up several files under one lock; unknown fileIds are left out.
+     */
+    public Map<String, FileStatus> getAll(Collection<String> fileIds) {
+        Map<String, Entry> found = new LinkedHashMap<>();
+        synchronized (this) {
+            for (String fileId : fileIds) {
+                Entry entry = entries.get(fileId);
+                if (entry != null) {
+                    found.put(fileId, entry);
+                }
+            }
+        }
+        Map<String, FileStatus> statuses = new LinkedHashMap<>();
+        found.forEach((fileId, entry) -> statuses.put(fileId, entry.toStatus(fileId)));
+        return statuses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(byte status, byte steps, String errorMessage, long endTimeMillis, long processingTimeMs) {
+
+        FileStatus toStatus(String fileId) {
+            List<ProcessingResult.ProcessingStep> completedSteps = new ArrayList<>(STEPS.length);
+            for (ProcessingResult.ProcessingStep step : STEPS) {
+                if ((steps & (1 << step.ordinal())) != 0) {
+                    completedSteps.add(step);
+                }
+            }
+            return new FileStatus(fileId, STATUSES[status], completedSteps, errorMessage,
+                    endTimeMillis >= 0 ? Instant.ofEpochMilli(endTimeMillis) : null, processingTimeMs);
+        }
+    }
+}
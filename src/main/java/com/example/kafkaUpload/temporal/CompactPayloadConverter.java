@@ -0,0 +1,64 @@
+package com.example.kafkaUpload.temporal;
+
+import com.example.kafkaUpload.kafka.CompactPayloadCodec;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.PayloadConverter;
+
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Temporal payload converter writing {@code FileProcessingMessage} and {@code ProcessingResult}
+ * in the binary encoding of {@link CompactPayloadCodec}, the same one used for compact Kafka records.
+ * Other values are left to the next converter. Payloads of this encoding are always read, so
+ * encoding can be switched off without breaking workflows whose history already contains them.
+ */
+public class CompactPayloadConverter implements PayloadConverter {
+
+    public static final String ENCODING = "binary/x-pipeline";
+    private static final ByteString ENCODING_BYTES = ByteString.copyFromUtf8(ENCODING);
+
+    private final CompactPayloadCodec codec = new CompactPayloadCodec();
+    private final boolean encode;
+
+    /**
+     * @param encode whether to write supported values in the compact encoding
+     */
+    public CompactPayloadConverter(boolean encode) {
+        this.encode = encode;
+    }
+
+    @Override
+    public String getEncodingType() {
+        return ENCODING;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) throws DataConverterException {
+        if (!encode || value == null || !codec.supports(value)) {
+            return Optional.empty();
+        }
+        return Optional.of(Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING_BYTES)
+                .setData(ByteString.copyFrom(codec.encode(value)))
+                .build());
+    }
+
+    @Override
+    public <T> T fromData(Payload content, Class<T> valueType, Type valueGenericType) throws DataConverterException {
+        Object value;
+        try {
+            value = codec.decode(content.getData().toByteArray());
+        } catch (RuntimeException e) {
+            throw new DataConverterException("Malformed compact payload", e);
+        }
+        if (!valueType.isInstance(value)) {
+            throw new DataConverterException("Compact payload holds " + value.getClass().getName()
+                    + ", expected " + valueType.getName());
+        }
+        return valueType.cast(value);
+    }
+}
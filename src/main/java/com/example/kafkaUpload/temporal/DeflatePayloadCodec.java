@@ -0,0 +1,105 @@
+package com.example.kafkaUpload.temporal;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses Temporal payloads of at least {@code thresholdBytes}, such as the file lists of batch
+ * workflows, before they are stored in workflow history. The whole payload, metadata included, is
+ * deflated and wrapped in a payload of its own encoding; it is kept uncompressed unless that saves
+ * space. Compressed payloads are always inflated, whatever the threshold.
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    public static final String ENCODING = "binary/x-deflate";
+    private static final ByteString ENCODING_BYTES = ByteString.copyFromUtf8(ENCODING);
+
+    private final int thresholdBytes;
+
+    /**
+     * @param thresholdBytes smallest payload to compress; negative to never compress
+     */
+    public DeflatePayloadCodec(int thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        return payloads.stream().map(this::encode).toList();
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        return payloads.stream().map(this::decode).toList();
+    }
+
+    private Payload encode(Payload payload) {
+        if (thresholdBytes < 0 || payload.getSerializedSize() < thresholdBytes) {
+            return payload;
+        }
+        byte[] compressed = deflate(payload.toByteArray());
+        if (compressed.length >= payload.getSerializedSize()) {
+            return payload;
+        }
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING_BYTES)
+                .setData(ByteString.copyFrom(compressed))
+                .build();
+    }
+
+    private Payload decode(Payload payload) {
+        if (!ENCODING_BYTES.equals(payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null))) {
+            return payload;
+        }
+        try {
+            return Payload.parseFrom(inflate(payload.getData().toByteArray()));
+        } catch (InvalidProtocolBufferException | DataFormatException e) {
+            throw new PayloadCodecException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] chunk = new byte[Math.min(8192, data.length + 16)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflate payload");
+                }
+                out.write(chunk, 0, inflated);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.kafkaUpload.temporal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.temporal.common.converter.ByteArrayPayloadConverter;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.NullPayloadConverter;
+import io.temporal.common.converter.ProtobufJsonPayloadConverter;
+import io.temporal.common.converter.ProtobufPayloadConverter;
+
+import java.util.List;
+
+/**
+ * Data converter of the file processing pipeline. Messages and results use the
+ * {@link CompactPayloadConverter} encoding. Everything else is JSON without null fields, which the
+ * default JSON converter reads as well. Payloads from the compression threshold up are deflated.
+ * Every encoding is always readable, so both settings can change while workflows are running.
+ */
+public final class PipelineDataConverter {
+
+    private PipelineDataConverter() {
+    }
+
+    /**
+     * @param compactEncoding whether to write messages and results in the compact encoding
+     * @param compressionThresholdBytes smallest payload to deflate; negative to never deflate
+     */
+    public static DataConverter newInstance(boolean compactEncoding, int compressionThresholdBytes) {
+        JacksonJsonPayloadConverter jsonConverter = new JacksonJsonPayloadConverter(
+                JacksonJsonPayloadConverter.newDefaultObjectMapper()
+                        .setSerializationInclusion(JsonInclude.Include.NON_NULL));
+        // Same order as the SDK default, with the compact converter ahead of JSON, which accepts any value
+        DataConverter converter = new DefaultDataConverter(
+                new NullPayloadConverter(),
+                new ByteArrayPayloadConverter(),
+                new ProtobufJsonPayloadConverter(),
+                new ProtobufPayloadConverter(),
+                new CompactPayloadConverter(compactEncoding),
+                jsonConverter);
+        return new CodecDataConverter(converter, List.of(new DeflatePayloadCodec(compressionThresholdBytes)));
+    }
+}
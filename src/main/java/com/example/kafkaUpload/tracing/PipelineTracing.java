@@ -0,0 +1,85 @@
+package com.example.kafkaUpload.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Spans for the pipeline stages that no instrumentation covers: time a record waited in Kafka,
+ * the Temporal workflow start, and hand-offs to other threads.
+ */
+@Component
+public class PipelineTracing {
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public PipelineTracing(Tracer tracer, Propagator propagator) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    /**
+     * Starts a span that is a child of the current span.
+     */
+    public Span startSpan(String name) {
+        return tracer.nextSpan().name(name).start();
+    }
+
+    public Tracer.SpanInScope withSpan(Span span) {
+        return tracer.withSpan(span);
+    }
+
+    /**
+     * Starts a span whose parent is the trace context in the headers of the record,
+     * for listeners that are not observed by the container.
+     */
+    public Span startSpan(String name, ConsumerRecord<?, ?> record) {
+        return propagator.extract(record, (carrier, key) -> {
+                    Header header = carrier.headers().lastHeader(key);
+                    return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+                })
+                .name(name)
+                .kind(Span.Kind.CONSUMER)
+                .tag("messaging.kafka.partition", String.valueOf(record.partition()))
+                .tag("messaging.kafka.offset", String.valueOf(record.offset()))
+                .start();
+    }
+
+    /**
+     * Records the time a record spent in Kafka, from its timestamp until now, as a child of the current span.
+     */
+    public void recordQueueWait(long recordTimestampMillis) {
+        long now = System.currentTimeMillis();
+        if (recordTimestampMillis <= 0 || recordTimestampMillis > now) {
+            return;
+        }
+        Span wait = tracer.spanBuilder()
+                .name("kafka.queue.wait")
+                .startTimestamp(recordTimestampMillis, TimeUnit.MILLISECONDS)
+                .start();
+        wait.end(now, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wraps a task so that it runs in the span that is current at the time of wrapping.
+     */
+    public <T> Supplier<T> inCurrentSpan(Supplier<T> task) {
+        Span parent = tracer.currentSpan();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                return task.get();
+            }
+        };
+    }
+}
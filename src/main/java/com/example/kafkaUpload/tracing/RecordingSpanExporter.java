@@ -0,0 +1,65 @@
+package com.example.kafkaUpload.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps exported spans in memory, so tests and local runs can inspect per-stage spans
+ * without a tracing backend. Enabled with {@code tracing.in-memory-exporter.enabled}.
+ */
+public class RecordingSpanExporter implements SpanExporter {
+
+    private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+    private final int maxSpans;
+
+    public RecordingSpanExporter(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Returns the spans exported so far, oldest first.
+     */
+    public List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Returns the exported spans of one trace.
+     */
+    public List<SpanData> getTrace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.getTraceId().equals(traceId))
+                .toList();
+    }
+
+    public void reset() {
+        spans.clear();
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        spans.addAll(batch);
+        // Drop the oldest spans beyond the bound
+        int excess = spans.size() - maxSpans;
+        if (excess > 0) {
+            spans.subList(0, excess).clear();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.kafkaUpload.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.context.ContextPropagator;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.GlobalDataConverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Carries the W3C trace context through Temporal headers, from the thread that starts a
+ * workflow into the workflow and from there into every activity it schedules.
+ * The carried context is a plain string map, so workflow code stays deterministic;
+ * spans are only created on the client and activity side.
+ */
+public class TraceContextPropagator implements ContextPropagator {
+
+    private static final ThreadLocal<Map<String, String>> CURRENT = new ThreadLocal<>();
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public TraceContextPropagator(Tracer tracer, Propagator propagator) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    /**
+     * Returns the trace context propagated to the current workflow or activity thread,
+     * or an empty map outside of Temporal-managed threads.
+     */
+    public static Map<String, String> current() {
+        Map<String, String> carrier = CURRENT.get();
+        return carrier != null ? carrier : Map.of();
+    }
+
+    @Override
+    public String getName() {
+        return "trace-context";
+    }
+
+    @Override
+    public Object getCurrentContext() {
+        // Inside workflows and activities, pass on what was propagated to this thread
+        Map<String, String> propagated = CURRENT.get();
+        if (propagated != null) {
+            return propagated;
+        }
+
+        Map<String, String> carrier = new HashMap<>();
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            propagator.inject(span.context(), carrier, Map::put);
+        }
+        return carrier;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setCurrentContext(Object context) {
+        CURRENT.set((Map<String, String>) context);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Payload> serializeContext(Object context) {
+        DataConverter dataConverter = GlobalDataConverter.get();
+        Map<String, Payload> serialized = new HashMap<>();
+        if (context != null) {
+            ((Map<String, String>) context).forEach((key, value) ->
+                    dataConverter.toPayload(value).ifPresent(payload -> serialized.put(key, payload)));
+        }
+        return serialized;
+    }
+
+    @Override
+    public Object deserializeContext(Map<String, Payload> context) {
+        DataConverter dataConverter = GlobalDataConverter.get();
+        Map<String, String> carrier = new HashMap<>();
+        context.forEach((key, payload) ->
+                carrier.put(key, dataConverter.fromPayload(payload, String.class, String.class)));
+        return carrier;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.kafkaUpload.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ActivityInfo;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptor;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates two spans per activity attempt, both children of the context propagated by
+ * {@link TraceContextPropagator}: the wait on the task queue, from scheduling to the start
+ * of the attempt, and the execution of the activity itself.
+ */
+public class TracingWorkerInterceptor extends WorkerInterceptorBase {
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public TracingWorkerInterceptor(Tracer tracer, Propagator propagator) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    @Override
+    public ActivityInboundCallsInterceptor interceptActivity(ActivityInboundCallsInterceptor next) {
+        return new ActivityInboundCallsInterceptorBase(next) {
+            private ActivityExecutionContext context;
+
+            @Override
+            public void init(ActivityExecutionContext context) {
+                this.context = context;
+                super.init(context);
+            }
+
+            @Override
+            public ActivityOutput execute(ActivityInput input) {
+                ActivityInfo info = context.getInfo();
+                Map<String, String> carrier = TraceContextPropagator.current();
+                String activityType = info.getActivityType();
+                String taskQueue = info.isLocal() ? "local" : info.getActivityTaskQueue();
+
+                long scheduledMillis = info.getCurrentAttemptScheduledTimestamp();
+                long startedMillis = System.currentTimeMillis();
+                if (scheduledMillis > 0 && scheduledMillis <= startedMillis) {
+                    Span wait = propagator.extract(carrier, Map::get)
+                            .name("temporal.task-queue.wait")
+                            .tag("temporal.activity.type", activityType)
+                            .tag("temporal.task-queue", taskQueue)
+                            .startTimestamp(scheduledMillis, TimeUnit.MILLISECONDS)
+                            .start();
+                    wait.end(startedMillis, TimeUnit.MILLISECONDS);
+                }
+
+                Span span = propagator.extract(carrier, Map::get)
+                        .name("temporal.activity " + activityType)
+                        .tag("temporal.activity.type", activityType)
+                        .tag("temporal.task-queue", taskQueue)
+                        .tag("temporal.workflow.id", info.getWorkflowId())
+                        .tag("temporal.attempt", String.valueOf(info.getAttempt()))
+                        .start();
+                try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                    return super.execute(input);
+                } catch (RuntimeException e) {
+                    span.error(e);
+                    throw e;
+                } finally {
+                    span.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.kafkaUpload.workflow;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+import java.util.List;
+
+@WorkflowInterface
+public interface FileBatchProcessingWorkflow {
+
+    @WorkflowMethod
+    List<ProcessingResult> processBatch(List<FileProcessingMessage> messages);
+}
@@ -0,0 +1,193 @@
+package com.example.kafkaUpload.workflow;
+
+import com.example.kafkaUpload.activity.ResultPublishActivity;
+import com.example.kafkaUpload.activity.ThumbnailActivity;
+import com.example.kafkaUpload.activity.VirusScanActivity;
+import com.example.kafkaUpload.constants.SearchAttributeConstants;
+import com.example.kafkaUpload.model.*;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Processes a batch of files in one workflow execution to amortize the per-workflow
+ * start and history overhead. Each file runs the same scan-then-thumbnail pipeline as
+ * {@link FileProcessingWorkflowImpl}, with at most {@code batchParallelism} files in flight.
+ * The {@code localInspection} and {@code speculativeThumbnails} settings are not used here:
+ * every file is scanned by the scan activity before its thumbnail is created.
+ */
+@Slf4j
+public class FileBatchProcessingWorkflowImpl implements FileBatchProcessingWorkflow {
+
+    private final ActivityOptions activityOptions;
+    private VirusScanActivity virusScanActivity;
+    private ThumbnailActivity thumbnailActivity;
+    private final ResultPublishActivity resultPublishActivity;
+    private final FileProcessingWorkflowOptions options;
+
+    public FileBatchProcessingWorkflowImpl() {
+        this(new FileProcessingWorkflowOptions());
+    }
+
+    public FileBatchProcessingWorkflowImpl(FileProcessingWorkflowOptions options) {
+        this.options = options;
+
+        this.activityOptions = FileProcessingWorkflowOptions.pipelineActivityOptions();
+        this.resultPublishActivity = Workflow.newActivityStub(ResultPublishActivity.class,
+                FileProcessingWorkflowOptions.publishActivityOptions());
+    }
+
+    @Override
+    public List<ProcessingResult> processBatch(List<FileProcessingMessage> messages) {
+        FileProcessingWorkflowOptions settings = Workflow.sideEffect(
+                FileProcessingWorkflowOptions.class, () -> options);
+
+        // Scans and thumbnails go to dedicated task queues when the worker has them configured
+        this.virusScanActivity = Workflow.newActivityStub(VirusScanActivity.class,
+                FileProcessingWorkflowOptions.onTaskQueue(activityOptions, settings.getScanTaskQueue()));
+        this.thumbnailActivity = Workflow.newActivityStub(ThumbnailActivity.class,
+                FileProcessingWorkflowOptions.onTaskQueue(activityOptions, settings.getThumbnailTaskQueue()));
+
+        int parallelism = Math.max(1, settings.getBatchParallelism());
+
+        log.info("Starting batch processing workflow for {} files with parallelism {}", messages.size(), parallelism);
+
+        ScanResult.ScanStatus[] scanStatuses = new ScanResult.ScanStatus[messages.size()];
+        List<Promise<ProcessingResult>> pending = new ArrayList<>(messages.size());
+        List<Promise<?>> inFlight = new ArrayList<>(parallelism);
+
+        for (int i = 0; i < messages.size(); i++) {
+            if (inFlight.size() >= parallelism) {
+                Promise.anyOf(inFlight).get();
+                inFlight.removeIf(Promise::isCompleted);
+            }
+            Promise<ProcessingResult> promise = processFileAsync(messages.get(i), scanStatuses, i);
+            pending.add(promise);
+            inFlight.add(promise);
+        }
+
+        List<ProcessingResult> results = new ArrayList<>(pending.size());
+        for (Promise<ProcessingResult> promise : pending) {
+            results.add(promise.get());
+        }
+
+        updateAggregateSearchAttributes(results, scanStatuses);
+        publishResults(results);
+
+        log.info("Batch processing workflow completed for {} files", results.size());
+        return results;
+    }
+
+    /**
+     * Runs the scan-then-thumbnail pipeline for one file without blocking the workflow thread.
+     * The returned promise never fails; errors are reported in the result.
+     */
+    private Promise<ProcessingResult> processFileAsync(FileProcessingMessage message,
+                                                      ScanResult.ScanStatus[] scanStatuses, int index) {
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(message.getFileId());
+        result.setFilePath(message.getFilePath());
+        result.setRequestCreatedAt(message.getCreatedAt());
+        result.setStatus(ProcessingResult.ProcessingStatus.STARTED);
+        result.setStartTime(LocalDateTime.now());
+        result.setCompletedSteps(new ArrayList<>());
+
+        return Async.function(virusScanActivity::scanFile, message.getFilePath())
+                .thenCompose(scanResult -> {
+                    scanStatuses[index] = scanResult.getStatus();
+                    result.setScanStatus(scanResult.getStatus());
+                    if (!scanResult.isClean()) {
+                        result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
+                        result.setErrorMessage("Virus scan failed: " + scanResult.getStatus());
+                        return Workflow.newPromise(result);
+                    }
+
+                    result.getCompletedSteps().add(ProcessingResult.ProcessingStep.VIRUS_SCAN);
+                    result.setStatus(ProcessingResult.ProcessingStatus.VIRUS_SCAN_COMPLETED);
+
+                    if (!message.isImageFile()) {
+                        result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+                        return Workflow.newPromise(result);
+                    }
+
+                    return Async.function(thumbnailActivity::createThumbnail, message.getFilePath())
+                            .thenApply(thumbnailResult -> {
+                                if (thumbnailResult.isSuccessful()) {
+                                    result.getCompletedSteps().add(ProcessingResult.ProcessingStep.THUMBNAIL_CREATION);
+                                } else {
+                                    log.warn("Thumbnail creation failed for file: {} - Status: {}",
+                                            message.getFilePath(), thumbnailResult.getStatus());
+                                }
+                                result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+                                return result;
+                            });
+                })
+                .handle((completed, failure) -> {
+                    if (failure != null) {
+                        log.error("File processing failed in batch for file: {}", message.getFilePath(), failure);
+                        result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
+                        result.setErrorMessage("Processing failed: " + failure.getMessage());
+                    }
+                    result.setEndTime(LocalDateTime.now());
+                    result.setProcessingTimeMs(
+                        Duration.between(result.getStartTime(), result.getEndTime()).toMillis()
+                    );
+                    return result;
+                });
+    }
+
+    /**
+     * Publishes all results of the batch with a single activity invocation.
+     */
+    private void publishResults(List<ProcessingResult> results) {
+        try {
+            resultPublishActivity.publishResults(results);
+        } catch (Exception e) {
+            log.error("Failed to publish processing results for batch of {} files", results.size(), e);
+        }
+    }
+
+    /**
+     * Upserts batch-level search attributes once: per-status scan counts
+     * (e.g. "CLEAN:48 INFECTED:2") and the union of completed steps.
+     */
+    private void updateAggregateSearchAttributes(List<ProcessingResult> results, ScanResult.ScanStatus[] scanStatuses) {
+        try {
+            Map<String, Integer> scanCounts = new TreeMap<>();
+            for (ScanResult.ScanStatus status : scanStatuses) {
+                scanCounts.merge(status != null ? status.toString() : "FAILED", 1, Integer::sum);
+            }
+            String virusScanSummary = scanCounts.entrySet()
+                .stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(" "));
+
+            Set<String> completedSteps = new TreeSet<>();
+            for (ProcessingResult result : results) {
+                result.getCompletedSteps().forEach(step -> completedSteps.add(step.toString()));
+            }
+
+            Workflow.upsertTypedSearchAttributes(
+                SearchAttributeConstants.VIRUS_SCAN_RESULT.valueSet(virusScanSummary),
+                SearchAttributeConstants.COMPLETED_STEPS.valueSet(new ArrayList<>(completedSteps))
+            );
+
+            log.debug("Updated batch search attributes - VirusScanResult: {}, CompletedSteps: {}",
+                     virusScanSummary, completedSteps);
+        } catch (Exception e) {
+            log.warn("Failed to update batch search attributes: {}", e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.kafkaUpload.workflow;
 
+import com.example.kafkaUpload.activity.FileInspectionActivity;
+import com.example.kafkaUpload.activity.ResultPublishActivity;
 import com.example.kafkaUpload.activity.ThumbnailActivity;
 import com.example.kafkaUpload.activity.VirusScanActivity;
 import com.example.kafkaUpload.constants.SearchAttributeConstants;
 import com.example.kafkaUpload.model.*;
 import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,21 +22,39 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FileProcessingWorkflowImpl implements FileProcessingWorkflow {
 
-    private final VirusScanActivity virusScanActivity;
-    private final ThumbnailActivity thumbnailActivity;
+    // Change ids of Workflow.getVersion; workflows started before a change replay the old command sequence
+    static final String RECORDED_OPTIONS_CHANGE = "recorded-workflow-options";
+    static final String LOCAL_INSPECTION_CHANGE = "local-inspection";
+    static final String PUBLISH_RESULT_CHANGE = "publish-result-activity";
+
+    private final ActivityOptions activityOptions;
+    private VirusScanActivity virusScanActivity;
+    private ThumbnailActivity thumbnailActivity;
+    private final ResultPublishActivity resultPublishActivity;
+    private final FileInspectionActivity fileInspectionActivity;
+    private final FileProcessingWorkflowOptions options;
 
     public FileProcessingWorkflowImpl() {
-        ActivityOptions activityOptions = ActivityOptions.newBuilder()
-                .setStartToCloseTimeout(Duration.ofMinutes(5))
+        this(new FileProcessingWorkflowOptions());
+    }
+
+    public FileProcessingWorkflowImpl(FileProcessingWorkflowOptions options) {
+        this.options = options;
+
+        this.activityOptions = FileProcessingWorkflowOptions.pipelineActivityOptions();
+        this.resultPublishActivity = Workflow.newActivityStub(ResultPublishActivity.class,
+                FileProcessingWorkflowOptions.publishActivityOptions());
+
+        LocalActivityOptions inspectionOptions = LocalActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(10))
                 .setRetryOptions(io.temporal.common.RetryOptions.newBuilder()
-                        .setInitialInterval(Duration.ofSeconds(1))
-                        .setMaximumInterval(Duration.ofSeconds(10))
+                        .setInitialInterval(Duration.ofMillis(100))
+                        .setMaximumInterval(Duration.ofSeconds(1))
                         .setMaximumAttempts(3)
                         .build())
                 .build();
 
-        this.virusScanActivity = Workflow.newActivityStub(VirusScanActivity.class, activityOptions);
-        this.thumbnailActivity = Workflow.newActivityStub(ThumbnailActivity.class, activityOptions);
+        this.fileInspectionActivity = Workflow.newLocalActivityStub(FileInspectionActivity.class, inspectionOptions);
     }
 
     @Override
@@ -41,21 +64,64 @@ public class FileProcessingWorkflowImpl implements FileProcessingWorkflow {
         ProcessingResult result = new ProcessingResult();
         result.setFileId(message.getFileId());
         result.setFilePath(message.getFilePath());
+        result.setRequestCreatedAt(message.getCreatedAt());
         result.setStatus(ProcessingResult.ProcessingStatus.STARTED);
         result.setStartTime(LocalDateTime.now());
         result.setCompletedSteps(new ArrayList<>());
 
         ScanResult scanResult = null;
+        Promise<ThumbnailResult> speculativeThumbnail = null;
+
+        // Recorded in history so that replays see the settings the workflow started with;
+        // workflows started before the settings existed keep the defaults, which add no commands
+        FileProcessingWorkflowOptions settings =
+                Workflow.getVersion(RECORDED_OPTIONS_CHANGE, Workflow.DEFAULT_VERSION, 1) == Workflow.DEFAULT_VERSION
+                        ? new FileProcessingWorkflowOptions()
+                        : Workflow.sideEffect(FileProcessingWorkflowOptions.class, () -> options);
+
+        // Scans and thumbnails go to dedicated task queues when the worker has them configured
+        this.virusScanActivity = Workflow.newActivityStub(VirusScanActivity.class,
+                FileProcessingWorkflowOptions.onTaskQueue(activityOptions, settings.getScanTaskQueue()));
+        this.thumbnailActivity = Workflow.newActivityStub(ThumbnailActivity.class,
+                FileProcessingWorkflowOptions.onTaskQueue(activityOptions, settings.getThumbnailTaskQueue()));
 
         try {
+            // Cheap checks run in the worker as a local activity, without a task queue round trip
+            FileInspection inspection = null;
+            if (settings.isLocalInspection() && inspectsLocally()) {
+                inspection = fileInspectionActivity.inspectFile(
+                        message.getFilePath(), settings.getLocalInspectionMaxBytes());
+                if (!inspection.isExists()) {
+                    log.warn("File not found for file: {}", message.getFilePath());
+                    result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
+                    result.setErrorMessage("File not found: " + message.getFilePath());
+                    return result;
+                }
+            }
+
+            // Files named like images whose content is known not to decode get no thumbnail
+            boolean imageFile = message.isImageFile()
+                    && (inspection == null || !Boolean.FALSE.equals(inspection.getImage()));
+            boolean verdictCached = inspection != null && inspection.getCachedVerdict() != null;
+
+            // Optionally create the thumbnail while the scan runs; it is discarded unless the scan is clean
+            if (settings.isSpeculativeThumbnails() && imageFile && !verdictCached) {
+                log.info("Speculatively creating thumbnail in parallel with virus scan for: {}", message.getFilePath());
+                // Staged under this run's id, so that other workflows for the same source never see it
+                speculativeThumbnail = Async.function(thumbnailActivity::createStagedThumbnail,
+                        message.getFilePath(), Workflow.getInfo().getRunId());
+            }
+
             // Step 1: Virus Scan (required for all files)
             log.info("Executing virus scan for file: {}", message.getFilePath());
-            scanResult = virusScanActivity.scanFile(message.getFilePath());
+            scanResult = scanFile(message.getFilePath(), inspection);
+            result.setScanStatus(scanResult.getStatus());
             
             
             if (!scanResult.isClean()) {
                 log.warn("Virus scan failed for file: {} - Status: {}", 
                         message.getFilePath(), scanResult.getStatus());
+                discardSpeculativeThumbnail(speculativeThumbnail);
                 result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
                 result.setErrorMessage("Virus scan failed: " + scanResult.getStatus());
                 return result;
@@ -66,9 +132,11 @@ public class FileProcessingWorkflowImpl implements FileProcessingWorkflow {
             log.info("Virus scan completed successfully for file: {}", message.getFilePath());
 
             // Step 2: Thumbnail Creation (only for image files and after successful virus scan)
-            if (message.isImageFile()) {
+            if (imageFile) {
                 log.info("File is an image, creating thumbnail for: {}", message.getFilePath());
-                ThumbnailResult thumbnailResult = thumbnailActivity.createThumbnail(message.getFilePath());
+                ThumbnailResult thumbnailResult = speculativeThumbnail != null
+                        ? promoteSpeculativeThumbnail(speculativeThumbnail)
+                        : thumbnailActivity.createThumbnail(message.getFilePath());
                 
                 if (thumbnailResult.isSuccessful()) {
                     result.getCompletedSteps().add(ProcessingResult.ProcessingStep.THUMBNAIL_CREATION);
@@ -89,6 +157,8 @@ public class FileProcessingWorkflowImpl implements FileProcessingWorkflow {
 
         } catch (Exception e) {
             log.error("File processing workflow failed for file: {}", message.getFilePath(), e);
+            // Staged output is private to this run and is always safe to discard
+            discardSpeculativeThumbnail(speculativeThumbnail);
             result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
             result.setErrorMessage("Processing failed: " + e.getMessage());
         } finally {
@@ -101,11 +171,99 @@ public class FileProcessingWorkflowImpl implements FileProcessingWorkflow {
             
             // Update search attributes once at the end of workflow execution
             updateFinalSearchAttributes(result, scanResult);
+
+            // Publish the result from inside the workflow so no client thread waits on completion
+            publishResult(result);
         }
 
         return result;
     }
 
+    /**
+     * Whether this run performs the local inspection. Workflows started before the
+     * inspection existed went straight to the scan activity.
+     */
+    private boolean inspectsLocally() {
+        return Workflow.getVersion(LOCAL_INSPECTION_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION;
+    }
+
+    /**
+     * Returns the cached verdict found by the local inspection, or runs the scan activity,
+     * handing over the checksum when the inspection already computed it.
+     *
+     * @param filePath the file to scan
+     * @param inspection the local inspection result, or null if local inspection is disabled
+     */
+    private ScanResult scanFile(String filePath, FileInspection inspection) {
+        if (inspection == null) {
+            return virusScanActivity.scanFile(filePath);
+        }
+        if (inspection.getCachedVerdict() != null) {
+            log.info("Virus scan verdict found by local inspection for file: {}", filePath);
+            return inspection.getCachedVerdict();
+        }
+        return virusScanActivity.scanFileWithChecksum(filePath, inspection.getChecksum());
+    }
+
+    /**
+     * Waits for a speculatively created thumbnail after a clean verdict and moves
+     * staged renditions to their final names.
+     *
+     * @param speculativeThumbnail the pending thumbnail
+     */
+    private ThumbnailResult promoteSpeculativeThumbnail(Promise<ThumbnailResult> speculativeThumbnail) {
+        ThumbnailResult thumbnailResult = speculativeThumbnail.get();
+        if (!thumbnailResult.isSuccessful()) {
+            return thumbnailResult;
+        }
+        return thumbnailActivity.promoteThumbnails(thumbnailResult);
+    }
+
+    /**
+     * Waits for a speculatively created thumbnail and deletes its staged output,
+     * so that nothing derived from an unclean file is left behind.
+     *
+     * @param speculativeThumbnail the pending thumbnail, or null if none was started
+     */
+    private void discardSpeculativeThumbnail(Promise<ThumbnailResult> speculativeThumbnail) {
+        if (speculativeThumbnail == null) {
+            return;
+        }
+        try {
+            ThumbnailResult thumbnailResult = speculativeThumbnail.get();
+            if (thumbnailResult.isSuccessful()) {
+                thumbnailActivity.discardThumbnails(thumbnailResult);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to discard speculative thumbnail: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the final result to the results topic via the publish activity.
+     * A publication failure is logged but does not change the processing outcome.
+     *
+     * @param result the final processing result
+     */
+    private void publishResult(ProcessingResult result) {
+        if (!publishesOwnResult()) {
+            return;
+        }
+        try {
+            resultPublishActivity.publishResult(result);
+        } catch (Exception e) {
+            log.error("Failed to publish processing result for fileId: {}", result.getFileId(), e);
+        }
+    }
+
+    /**
+     * Whether this run publishes its own result. Workflows started before the publish
+     * activity existed were published by the client that started them.
+     */
+    private boolean publishesOwnResult() {
+        return Workflow.getVersion(PUBLISH_RESULT_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION;
+    }
+
     /**
      * Updates all search attributes once at the end of workflow execution.
      * This approach minimizes Temporal Cloud costs by reducing the number of search attribute operations.
@@ -0,0 +1,90 @@
+package com.example.kafkaUpload.workflow;
+
+import io.temporal.activity.ActivityOptions;
+import io.temporal.common.RetryOptions;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Worker-side settings for {@link FileProcessingWorkflowImpl} and {@link FileBatchProcessingWorkflowImpl}.
+ * The workflow records these with a side effect when it starts, so that a configuration
+ * change on the worker never alters the replay of a workflow already in flight.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileProcessingWorkflowOptions {
+    /**
+     * Creates thumbnails concurrently with the virus scan and discards them if the scan is not clean.
+     * Not used by batch workflows, which always scan before creating thumbnails.
+     */
+    private boolean speculativeThumbnails;
+
+    /**
+     * Maximum number of files a batch workflow processes concurrently.
+     */
+    private int batchParallelism = 10;
+
+    /**
+     * Runs the existence check, checksum, image detection and cached verdict lookup as a local activity.
+     * Not used by batch workflows, whose scan activity performs these checks itself.
+     */
+    private boolean localInspection;
+
+    /**
+     * Files larger than this are only checked for existence locally; checksumming is left to the scan activity.
+     */
+    private long localInspectionMaxBytes = 1048576;
+
+    /**
+     * Task queue of the dedicated scan worker, or null to scan on the workflow's task queue.
+     */
+    private String scanTaskQueue;
+
+    /**
+     * Task queue of the dedicated thumbnail worker, or null to create thumbnails on the workflow's task queue.
+     */
+    private String thumbnailTaskQueue;
+
+    /**
+     * Options of the scan and thumbnail activities, shared by the single-file and batch workflows.
+     */
+    static ActivityOptions pipelineActivityOptions() {
+        return ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(5))
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setInitialInterval(Duration.ofSeconds(1))
+                        .setMaximumInterval(Duration.ofSeconds(10))
+                        .setMaximumAttempts(3)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Options of the result publish activity, shared by the single-file and batch workflows.
+     * The timeout leaves room for a batch workflow publishing all of its results in one call.
+     */
+    static ActivityOptions publishActivityOptions() {
+        return ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setInitialInterval(Duration.ofSeconds(1))
+                        .setMaximumInterval(Duration.ofSeconds(30))
+                        .setMaximumAttempts(10)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Returns the given activity options routed to {@code taskQueue}, or unchanged if it is null.
+     */
+    static ActivityOptions onTaskQueue(ActivityOptions activityOptions, String taskQueue) {
+        if (taskQueue == null) {
+            return activityOptions;
+        }
+        return ActivityOptions.newBuilder(activityOptions).setTaskQueue(taskQueue).build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.kafkaUpload.activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the streaming checksum engine against a plain MessageDigest.
+ */
+class ChecksumEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bufferedAndMappedChecksumsMatchMessageDigest() throws Exception {
+        ChecksumEngine engine = new ChecksumEngine(4096, 2, 64 * 1024);
+
+        for (int size : new int[] {0, 1, 4095, 4096, 50 * 1024, 64 * 1024, 300 * 1024}) {
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            Path file = Files.write(tempDir.resolve("file-" + size + ".bin"), content);
+
+            String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+            assertThat(engine.checksum(file)).as("size %d", size).isEqualTo(expected);
+        }
+
+        assertThat(engine.getBytesDigested()).isPositive();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.kafkaUpload.activity;
+
+import com.example.kafkaUpload.model.ScanResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies LRU eviction, verdict liveness and the replay and compaction of the index file.
+ */
+class ScanVerdictCacheTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedVerdictIsFound() {
+        ScanVerdictCache cache = cache(10, DAY_MS, "", "AV 1");
+
+        cache.store("abc", result(ScanResult.ScanStatus.INFECTED, "EICAR"));
+
+        ScanVerdictCache.Verdict verdict = cache.lookup("abc");
+        assertThat(verdict.status()).isEqualTo(ScanResult.ScanStatus.INFECTED);
+        assertThat(verdict.virusName()).isEqualTo("EICAR");
+        assertThat(cache.lookup("def")).isNull();
+    }
+
+    @Test
+    void scanFailuresAreNotCached() {
+        ScanVerdictCache cache = cache(10, DAY_MS, "", "AV 1");
+
+        cache.store("abc", result(ScanResult.ScanStatus.SCAN_FAILED, null));
+
+        assertThat(cache.lookup("abc")).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedVerdictIsEvicted() {
+        ScanVerdictCache cache = cache(2, DAY_MS, "", "AV 1");
+
+        cache.store("a", result(ScanResult.ScanStatus.CLEAN, null));
+        cache.store("b", result(ScanResult.ScanStatus.CLEAN, null));
+        cache.lookup("a");
+        cache.store("c", result(ScanResult.ScanStatus.CLEAN, null));
+
+        assertThat(cache.lookup("b")).isNull();
+        assertThat(cache.lookup("a")).isNotNull();
+        assertThat(cache.lookup("c")).isNotNull();
+    }
+
+    @Test
+    void expiredVerdictIsNotReturned() throws Exception {
+        ScanVerdictCache expiring = cache(10, 0, "", "AV 1");
+        expiring.store("abc", result(ScanResult.ScanStatus.CLEAN, null));
+        assertThat(expiring.lookup("abc")).isNull();
+        assertThat(expiring.size()).isZero();
+
+        // Index entries older than the TTL are not replayed
+        Path index = directory.resolve("verdicts.tsv");
+        long stale = System.currentTimeMillis() - 2 * DAY_MS;
+        Files.writeString(index, "old\tCLEAN\tAV 1\t" + stale + "\t\n");
+        ScanVerdictCache reopened = cache(10, DAY_MS, index.toString(), "AV 1");
+        assertThat(reopened.lookup("old")).isNull();
+        reopened.close();
+    }
+
+    @Test
+    void changedEngineVersionInvalidatesVerdicts() {
+        Path index = directory.resolve("verdicts.tsv");
+        ScanVerdictCache cache = cache(10, DAY_MS, index.toString(), "AV 1");
+        cache.store("abc", result(ScanResult.ScanStatus.CLEAN, null));
+        cache.close();
+
+        ScanVerdictCache sameEngine = cache(10, DAY_MS, index.toString(), "AV 1");
+        assertThat(sameEngine.lookup("abc")).isNotNull();
+        sameEngine.close();
+
+        ScanVerdictCache newEngine = cache(10, DAY_MS, index.toString(), "AV 2");
+        assertThat(newEngine.lookup("abc")).isNull();
+        newEngine.close();
+    }
+
+    @Test
+    void indexIsCompactedAndReopensWithLiveVerdicts() throws Exception {
+        Path index = directory.resolve("verdicts.tsv");
+        ScanVerdictCache cache = cache(10, DAY_MS, index.toString(), "AV 1");
+        int stored = 2_100;
+        for (int i = 0; i < stored; i++) {
+            cache.store("checksum-" + i, result(ScanResult.ScanStatus.CLEAN, null));
+        }
+        cache.close();
+
+        // Rewritten once it held more than twice the minimum compaction size
+        assertThat(Files.readAllLines(index)).hasSizeLessThan(stored);
+
+        ScanVerdictCache reopened = cache(10, DAY_MS, index.toString(), "AV 1");
+        assertThat(reopened.size()).isEqualTo(10);
+        assertThat(reopened.lookup("checksum-" + (stored - 1))).isNotNull();
+        assertThat(reopened.lookup("checksum-0")).isNull();
+        reopened.close();
+
+        // Reopening rewrites the index with only the live entries
+        assertThat(Files.readAllLines(index)).hasSize(10);
+    }
+
+    private static ScanVerdictCache cache(int maxEntries, long ttlMs, String indexPath, String engine) {
+        ScanVerdictCache cache = new ScanVerdictCache(new SimpleMeterRegistry(), true, maxEntries, ttlMs,
+                indexPath, engine);
+        cache.init();
+        return cache;
+    }
+
+    private static ScanResult result(ScanResult.ScanStatus status, String virusName) {
+        ScanResult result = new ScanResult();
+        result.setStatus(status);
+        result.setVirusName(virusName);
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.kafkaUpload.activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies output dimensions and sizes reported by the thumbnail engine.
+ */
+class ThumbnailEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ThumbnailEngine engine = new ThumbnailEngine();
+
+    @Test
+    void thumbnailFitsBoundsAndKeepsAspectRatio() throws Exception {
+        Path source = writeImage("landscape.jpg", 3000, 2000);
+        Path target = tempDir.resolve("landscape_thumb.jpg");
+
+        ThumbnailEngine.Rendition rendition = engine.createThumbnail(source, target, 200, 200, "jpg");
+
+        assertThat(rendition.width()).isEqualTo(200);
+        assertThat(rendition.height()).isEqualTo(133);
+        assertThat(rendition.sizeBytes()).isEqualTo(Files.size(target));
+        BufferedImage written = ImageIO.read(target.toFile());
+        assertThat(written.getWidth()).isEqualTo(200);
+        assertThat(written.getHeight()).isEqualTo(133);
+    }
+
+    @Test
+    void renditionsAreDerivedFromOneDecodeInRequestOrder() throws Exception {
+        Path source = writeImage("multi.jpg", 3000, 2000);
+
+        List<ThumbnailEngine.Rendition> renditions = engine.createRenditions(source, List.of(
+                new ThumbnailEngine.RenditionTarget(tempDir.resolve("multi_64.jpg"), 64, 64),
+                new ThumbnailEngine.RenditionTarget(tempDir.resolve("multi_800.jpg"), 800, 800),
+                new ThumbnailEngine.RenditionTarget(tempDir.resolve("multi_200.jpg"), 200, 200)), "jpg");
+
+        assertThat(renditions).extracting(ThumbnailEngine.Rendition::width).containsExactly(64, 800, 200);
+        assertThat(renditions).extracting(ThumbnailEngine.Rendition::height).containsExactly(43, 533, 133);
+    }
+
+    @Test
+    void renditionsWithDifferentShapesAreEachSizedFromTheSource() throws Exception {
+        Path source = writeImage("banner.jpg", 3000, 2000);
+
+        // The 800x100 banner box has the larger area but yields a smaller image than the square box
+        List<ThumbnailEngine.Rendition> renditions = engine.createRenditions(source, List.of(
+                new ThumbnailEngine.RenditionTarget(tempDir.resolve("banner_wide.jpg"), 800, 100),
+                new ThumbnailEngine.RenditionTarget(tempDir.resolve("banner_square.jpg"), 200, 200)), "jpg");
+
+        assertThat(renditions).extracting(ThumbnailEngine.Rendition::width).containsExactly(150, 200);
+        assertThat(renditions).extracting(ThumbnailEngine.Rendition::height).containsExactly(100, 133);
+    }
+
+    @Test
+    void smallImagesAreNotUpscaled() throws Exception {
+        Path source = writeImage("small.png", 120, 80);
+
+        ThumbnailEngine.Rendition rendition = engine.createThumbnail(source, tempDir.resolve("small_thumb.png"), 200, 200, "png");
+
+        assertThat(rendition.width()).isEqualTo(120);
+        assertThat(rendition.height()).isEqualTo(80);
+    }
+
+    @Test
+    void subsamplingKeepsTwiceTheTargetResolution() {
+        assertThat(ThumbnailEngine.subsamplingFactor(3000, 2000, 200, 200)).isEqualTo(7);
+        assertThat(ThumbnailEngine.subsamplingFactor(300, 200, 200, 200)).isEqualTo(1);
+    }
+
+    @Test
+    void nonImageContentIsUnsupported() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("fake.jpg"), "not an image");
+
+        assertThatThrownBy(() -> engine.createThumbnail(source, tempDir.resolve("fake_thumb.jpg"), 200, 200, "jpg"))
+                .isInstanceOf(ThumbnailEngine.UnsupportedImageException.class);
+    }
+
+    @Test
+    void truncatedImageIsCorrupt() throws Exception {
+        Path source = writeImage("truncated.jpg", 300, 200);
+        byte[] content = Files.readAllBytes(source);
+        Files.write(source, Arrays.copyOf(content, 64));
+
+        assertThatThrownBy(() -> engine.createThumbnail(source, tempDir.resolve("truncated_thumb.jpg"), 200, 200, "jpg"))
+                .isInstanceOf(ThumbnailEngine.CorruptImageException.class);
+    }
+
+    private Path writeImage(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y += 10) {
+            for (int x = 0; x < width; x += 10) {
+                image.setRGB(x, y, (x * 31 + y * 17) & 0xffffff);
+            }
+        }
+        Path file = tempDir.resolve(name);
+        ImageIO.write(image, name.substring(name.lastIndexOf('.') + 1), file.toFile());
+        return file;
+    }
+}
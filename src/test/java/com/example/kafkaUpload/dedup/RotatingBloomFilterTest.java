@@ -0,0 +1,52 @@
+package com.example.kafkaUpload.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the false-positive rate and the time window of the rotating Bloom filter.
+ */
+class RotatingBloomFilterTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    @Test
+    void insertedKeysAreAlwaysFound() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, WINDOW_MS, 2, 0);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("file-" + i, 0);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("file-" + i, 1)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(20_000, 0.01, WINDOW_MS, 2, 0);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString(), 0);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString(), 0)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void keysAreForgottenAfterTheWindow() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.01, WINDOW_MS, 2, 0);
+        filter.put("old", 0);
+
+        // Remembered through the next generation, gone once both generations have rotated
+        assertThat(filter.mightContain("old", WINDOW_MS / 2)).isTrue();
+        assertThat(filter.mightContain("old", WINDOW_MS)).isFalse();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.kafkaUpload.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the catalog emits each version of a file once, after it has settled.
+ */
+class FileCatalogTest {
+
+    private static final long SETTLE_MS = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileCatalog catalog = new FileCatalog();
+
+    @Test
+    void fileIsReadyOnlyAfterSettling() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "hello");
+        catalog.touch(file);
+
+        assertThat(catalog.drainReady(0, SETTLE_MS, 10)).isEmpty();
+        assertThat(catalog.drainReady(500, SETTLE_MS, 10)).isEmpty();
+
+        List<FileCatalog.CatalogedFile> ready = catalog.drainReady(1000, SETTLE_MS, 10);
+        assertThat(ready).extracting(FileCatalog.CatalogedFile::path).containsExactly(file);
+        assertThat(ready.get(0).size()).isEqualTo(5);
+        assertThat(catalog.pendingCount()).isZero();
+    }
+
+    @Test
+    void growingFileWaitsForTheWriter() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("upload.bin"), "part");
+        catalog.touch(file);
+        catalog.drainReady(0, SETTLE_MS, 10);
+
+        Files.writeString(file, "-more", StandardOpenOption.APPEND);
+
+        assertThat(catalog.drainReady(1000, SETTLE_MS, 10)).isEmpty();
+        assertThat(catalog.drainReady(2000, SETTLE_MS, 10)).hasSize(1);
+    }
+
+    @Test
+    void unchangedFileIsNotEmittedTwiceButNewVersionIs() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("doc.pdf"), "v1");
+        catalog.touch(file);
+        catalog.drainReady(0, SETTLE_MS, 10);
+        String firstId = catalog.drainReady(1000, SETTLE_MS, 10).get(0).fileId();
+
+        catalog.touch(file);
+        catalog.drainReady(2000, SETTLE_MS, 10);
+        assertThat(catalog.drainReady(3000, SETTLE_MS, 10)).isEmpty();
+
+        Files.writeString(file, "v2 longer");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        catalog.touch(file);
+        catalog.drainReady(4000, SETTLE_MS, 10);
+        List<FileCatalog.CatalogedFile> ready = catalog.drainReady(5000, SETTLE_MS, 10);
+        assertThat(ready).hasSize(1);
+        assertThat(ready.get(0).fileId()).isNotEqualTo(firstId);
+    }
+
+    @Test
+    void restoredFileIsOnlySentAgainOnceChanged() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("sent.txt"), "v1");
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        catalog.restore(new FileCatalog.CatalogedFile(file, 2, lastModified));
+
+        catalog.touch(file);
+        catalog.drainReady(0, SETTLE_MS, 10);
+        assertThat(catalog.drainReady(1000, SETTLE_MS, 10)).isEmpty();
+
+        Files.writeString(file, "v2 longer");
+        catalog.touch(file);
+        catalog.drainReady(2000, SETTLE_MS, 10);
+        assertThat(catalog.drainReady(3000, SETTLE_MS, 10)).hasSize(1);
+    }
+
+    @Test
+    void drainIsBoundedAndDeletedFilesAreDropped() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            catalog.touch(Files.writeString(tempDir.resolve("f" + i + ".txt"), "x"));
+        }
+        catalog.touch(tempDir.resolve("missing.txt"));
+        catalog.drainReady(0, SETTLE_MS, 10);
+
+        assertThat(catalog.pendingCount()).isEqualTo(5);
+        assertThat(catalog.drainReady(1000, SETTLE_MS, 3)).hasSize(3);
+        assertThat(catalog.drainReady(1000, SETTLE_MS, 3)).hasSize(2);
+        assertThat(catalog.size()).isEqualTo(5);
+    }
+}
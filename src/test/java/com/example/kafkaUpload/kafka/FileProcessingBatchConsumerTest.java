@@ -0,0 +1,43 @@
+package com.example.kafkaUpload.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that batch groups follow partition offset blocks rather than positions in the poll.
+ */
+class FileProcessingBatchConsumerTest {
+
+    @Test
+    void groupsAreAlignedToOffsetBlocksPerPartition() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.addAll(records(0, 3, 8));
+        records.addAll(records(1, 0, 3));
+
+        // Partition 0: offsets 3-4 and 5-7; partition 1: offsets 0-2
+        assertThat(FileProcessingBatchConsumer.groupStarts(records, 5)).containsExactly(0, 2, 5);
+    }
+
+    @Test
+    void redeliveredPollFormsTheSameFullGroups() {
+        List<Integer> firstPoll = FileProcessingBatchConsumer.groupStarts(records(0, 7, 20), 5);
+        List<Integer> redelivered = FileProcessingBatchConsumer.groupStarts(records(0, 7, 23), 5);
+
+        // Offsets 7-9, 10-14 and 15-19 start at the same records both times
+        assertThat(firstPoll).containsExactly(0, 3, 8);
+        assertThat(redelivered).containsExactly(0, 3, 8, 13);
+    }
+
+    private static List<ConsumerRecord<String, String>> records(int partition, long from, long to) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (long offset = from; offset < to; offset++) {
+            records.add(new ConsumerRecord<>("file-processing-requests", partition, offset, "key-" + offset, "v"));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.kafkaUpload.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that the listener container is paused at the high watermark and resumed at the low one.
+ */
+class InFlightTrackerTest {
+
+    private final KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    @Test
+    void pausesAtHighWatermarkAndResumesAtLowWatermark() {
+        when(registry.getListenerContainer("file-processing-listener")).thenReturn(container);
+        InFlightTracker tracker = tracker(4, 2);
+
+        for (int i = 0; i < 3; i++) {
+            tracker.acquire();
+        }
+        verify(container, never()).pause();
+
+        tracker.acquire();
+        tracker.acquire();
+        assertThat(tracker.isPaused()).isTrue();
+        verify(container, times(1)).pause();
+
+        tracker.release();
+        tracker.release();
+        verify(container, never()).resume();
+
+        tracker.release();
+        assertThat(tracker.isPaused()).isFalse();
+        assertThat(tracker.inFlight()).isEqualTo(2);
+        verify(container, times(1)).resume();
+    }
+
+    @Test
+    void concurrentAcquireAndReleaseNeverLeaveConsumptionPaused() throws Exception {
+        when(registry.getListenerContainer("file-processing-listener")).thenReturn(container);
+        InFlightTracker tracker = tracker(4, 2);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        tracker.acquire();
+                        tracker.release();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(tracker.inFlight()).isZero();
+        assertThat(tracker.isPaused()).isFalse();
+    }
+
+    @Test
+    void invalidWatermarksAreRejected() {
+        assertThatThrownBy(() -> tracker(2, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private InFlightTracker tracker(int high, int low) {
+        return new InFlightTracker(registry, new SimpleMeterRegistry(), true, high, low,
+                List.of("file-processing-listener"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.metrics.PipelineMetrics;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.service.FileProcessingService;
+import com.example.kafkaUpload.tracing.PipelineTracing;
+import io.micrometer.tracing.Span;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that a lane task completes its offset however processing ends, unless it is left for redelivery.
+ */
+class KeyParallelConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("file-processing-requests", 0);
+
+    private final FileProcessingService fileProcessingService = mock(FileProcessingService.class);
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer = mock(DeadLetterPublishingRecoverer.class);
+    private final KeyParallelConsumer consumer = new KeyParallelConsumer();
+    private PartitionWatermark watermark;
+
+    @BeforeEach
+    void setUp() {
+        PipelineTracing tracing = mock(PipelineTracing.class);
+        when(tracing.startSpan(anyString(), any(ConsumerRecord.class))).thenReturn(mock(Span.class));
+        ReflectionTestUtils.setField(consumer, "fileProcessingService", fileProcessingService);
+        ReflectionTestUtils.setField(consumer, "pipelineMetrics", mock(PipelineMetrics.class));
+        ReflectionTestUtils.setField(consumer, "pipelineTracing", tracing);
+        ReflectionTestUtils.setField(consumer, "deadLetterRecoverer", deadLetterRecoverer);
+        ReflectionTestUtils.setField(consumer, "maxAttempts", 1);
+        ReflectionTestUtils.setField(consumer, "running", true);
+
+        consumer.onPartitionsAssigned(List.of(PARTITION));
+        @SuppressWarnings("unchecked")
+        Map<TopicPartition, PartitionWatermark> watermarks =
+                (Map<TopicPartition, PartitionWatermark>) ReflectionTestUtils.getField(consumer, "watermarks");
+        watermark = watermarks.get(PARTITION);
+    }
+
+    @Test
+    void unexpectedValueIsDeadLetteredAndCompleted() {
+        ConsumerRecord<String, Object> record = record(0, "not a message");
+        watermark.track(0);
+
+        consumer.process(record, PARTITION, watermark);
+
+        verify(deadLetterRecoverer).accept(any(ConsumerRecord.class), any(Exception.class));
+        assertThat(watermark.pending()).isZero();
+        assertThat(watermark.committable()).isEqualTo(1);
+    }
+
+    @Test
+    void failedDeadLetterPublicationStillCompletesTheOffset() {
+        doThrow(new IllegalStateException("DLT unavailable"))
+                .when(deadLetterRecoverer).accept(any(ConsumerRecord.class), any(Exception.class));
+        doThrow(new RuntimeException("Temporal unavailable"))
+                .when(fileProcessingService).startWorkflow(any(FileProcessingMessage.class));
+        watermark.track(0);
+        watermark.track(1);
+
+        consumer.process(record(0, null), PARTITION, watermark);
+        consumer.process(record(1, message("b")), PARTITION, watermark);
+
+        assertThat(watermark.pending()).isZero();
+        assertThat(watermark.committable()).isEqualTo(2);
+    }
+
+    @Test
+    void startGivenUpOnShutdownStaysUncommitted() {
+        doThrow(new RuntimeException("Temporal unavailable"))
+                .when(fileProcessingService).startWorkflow(any(FileProcessingMessage.class));
+        ReflectionTestUtils.setField(consumer, "running", false);
+        watermark.track(0);
+
+        consumer.process(record(0, message("a")), PARTITION, watermark);
+
+        assertThat(watermark.pending()).isEqualTo(1);
+        assertThat(watermark.committable()).isZero();
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "key-" + offset, value);
+    }
+
+    private static FileProcessingMessage message(String fileId) {
+        FileProcessingMessage message = new FileProcessingMessage();
+        message.setFileId(fileId);
+        message.setFilePath("./test-data/" + fileId + ".jpg");
+        return message;
+    }
+}
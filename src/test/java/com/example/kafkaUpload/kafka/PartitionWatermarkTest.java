@@ -0,0 +1,69 @@
+package com.example.kafkaUpload.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that only the contiguous completed offsets of a partition become committable.
+ */
+class PartitionWatermarkTest {
+
+    @Test
+    void commitsNothingBeforeAnyRecordIsTracked() {
+        PartitionWatermark watermark = new PartitionWatermark();
+
+        assertThat(watermark.committable()).isNegative();
+        assertThat(watermark.advance()).isEqualTo(-1);
+    }
+
+    @Test
+    void holdsTheWatermarkAtTheLowestIncompleteOffset() {
+        PartitionWatermark watermark = new PartitionWatermark();
+        for (long offset = 10; offset < 15; offset++) {
+            watermark.track(offset);
+        }
+
+        watermark.complete(11);
+        watermark.complete(12);
+        watermark.complete(14);
+        assertThat(watermark.committable()).isEqualTo(10);
+        assertThat(watermark.pending()).isEqualTo(2);
+
+        watermark.complete(10);
+        assertThat(watermark.committable()).isEqualTo(13);
+
+        watermark.complete(13);
+        assertThat(watermark.committable()).isEqualTo(15);
+        assertThat(watermark.pending()).isZero();
+    }
+
+    @Test
+    void advanceReturnsOnlyNewWatermarks() {
+        PartitionWatermark watermark = new PartitionWatermark();
+        watermark.track(0);
+        watermark.track(1);
+
+        assertThat(watermark.advance()).isZero();
+        assertThat(watermark.advance()).isEqualTo(-1);
+
+        watermark.complete(1);
+        assertThat(watermark.advance()).isEqualTo(-1);
+
+        watermark.complete(0);
+        assertThat(watermark.advance()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresOffsetsThatWereNotTracked() {
+        PartitionWatermark watermark = new PartitionWatermark();
+        watermark.track(5);
+
+        watermark.complete(4);
+        watermark.complete(5);
+        watermark.complete(5);
+
+        assertThat(watermark.pending()).isZero();
+        assertThat(watermark.committable()).isEqualTo(6);
+    }
+}
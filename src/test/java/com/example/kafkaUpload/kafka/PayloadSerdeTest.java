@@ -0,0 +1,131 @@
+package com.example.kafkaUpload.kafka;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies compact round trips and that consumers read JSON and compact records side by side.
+ */
+class PayloadSerdeTest {
+
+    private static final String TOPIC = "file-processing-requests";
+
+    private final CompactPayloadCodec codec = new CompactPayloadCodec();
+
+    @Test
+    void compactRoundTripPreservesEveryField() {
+        FileProcessingMessage message = message(UUID.randomUUID().toString());
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(message.getFileId());
+        result.setFilePath(message.getFilePath());
+        result.setStatus(ProcessingResult.ProcessingStatus.FAILED);
+        result.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN));
+        result.setErrorMessage("Thumbnail creation failed: ünsupported");
+        result.setStartTime(LocalDateTime.of(2025, 7, 19, 11, 30, 0, 123_456_789));
+        result.setEndTime(LocalDateTime.of(1969, 12, 31, 23, 59, 59));
+        result.setProcessingTimeMs(-1);
+        result.setScanStatus(ScanResult.ScanStatus.INFECTED);
+
+        assertThat(codec.decode(codec.encode(message))).isEqualTo(message);
+        assertThat(codec.decode(codec.encode(result))).isEqualTo(result);
+    }
+
+    @Test
+    void nonCanonicalIdsAndNullsSurviveRoundTrip() {
+        FileProcessingMessage upperCaseId = message(UUID.randomUUID().toString().toUpperCase());
+        FileProcessingMessage customId = message("test-123");
+        FileProcessingMessage empty = new FileProcessingMessage();
+
+        assertThat(codec.decode(codec.encode(upperCaseId))).isEqualTo(upperCaseId);
+        assertThat(codec.decode(codec.encode(customId))).isEqualTo(customId);
+        assertThat(codec.decode(codec.encode(empty))).isEqualTo(empty);
+    }
+
+    @Test
+    void deserializerChoosesFormatByHeader() {
+        FileProcessingMessage message = message(UUID.randomUUID().toString());
+        PayloadDeserializer deserializer = new PayloadDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.example.kafkaUpload.model"), false);
+
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json = serializer(PayloadFormat.JSON).serialize(TOPIC, jsonHeaders, message);
+        RecordHeaders compactHeaders = new RecordHeaders();
+        byte[] compact = serializer(PayloadFormat.COMPACT).serialize(TOPIC, compactHeaders, message);
+
+        assertThat(jsonHeaders.lastHeader(PayloadFormat.HEADER)).isNull();
+        assertThat(compactHeaders.lastHeader(PayloadFormat.HEADER)).isNotNull();
+        assertThat(compact.length).isLessThan(json.length / 2);
+        assertThat(deserializer.deserialize(TOPIC, jsonHeaders, json)).isEqualTo(message);
+        assertThat(deserializer.deserialize(TOPIC, compactHeaders, compact)).isEqualTo(message);
+    }
+
+    @Test
+    void forwardedCompactRecordWrittenAsJsonLosesFormatHeader() {
+        FileProcessingMessage message = message(UUID.randomUUID().toString());
+        RecordHeaders headers = new RecordHeaders();
+        serializer(PayloadFormat.COMPACT).serialize(TOPIC, headers, message);
+
+        // A retry topic or DLT record copies the original headers before serializing the value again
+        byte[] json = serializer(PayloadFormat.JSON).serialize(TOPIC + "-dlt", headers, message);
+
+        assertThat(headers.lastHeader(PayloadFormat.HEADER)).isNull();
+        PayloadDeserializer deserializer = new PayloadDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.example.kafkaUpload.model"), false);
+        assertThat(deserializer.deserialize(TOPIC + "-dlt", headers, json)).isEqualTo(message);
+    }
+
+    @Test
+    void unknownSchemaVersionIsRejected() {
+        byte[] encoded = codec.encode(message(UUID.randomUUID().toString()));
+        byte[] future = Arrays.copyOf(encoded, encoded.length);
+        future[0] = CompactPayloadCodec.SCHEMA_VERSION + 1;
+
+        assertThatThrownBy(() -> codec.decode(future)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, 10))).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void hostileStepCountIsRejectedBeforeAllocating() {
+        // Null fileId, filePath and status, then a step count of about 2^30
+        byte[] hostile = {CompactPayloadCodec.SCHEMA_VERSION, 2, 0, 0, 0,
+                (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0, 0, 0, 0};
+
+        assertThatThrownBy(() -> codec.decode(hostile)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void unknownEnumConstantsDecodeAsNull() {
+        // Status ordinal 99, one completed step with ordinal 99, then null and zero fields
+        byte[] newer = {CompactPayloadCodec.SCHEMA_VERSION, 2, 0, 0, 100, 2, 100, 0, 0, 0, 0};
+
+        ProcessingResult result = (ProcessingResult) codec.decode(newer);
+
+        assertThat(result.getStatus()).isNull();
+        assertThat(result.getCompletedSteps()).isEmpty();
+    }
+
+    private static PayloadSerializer serializer(PayloadFormat format) {
+        PayloadSerializer serializer = new PayloadSerializer();
+        serializer.configure(Map.of(PayloadFormat.CONFIG, format.name()), false);
+        return serializer;
+    }
+
+    private static FileProcessingMessage message(String fileId) {
+        return new FileProcessingMessage(fileId, "./test-data/sample_image.jpg", "sample_image.jpg",
+                "jpg", 51_200L, LocalDateTime.of(2025, 7, 19, 11, 29, 58, 1_000));
+    }
+}
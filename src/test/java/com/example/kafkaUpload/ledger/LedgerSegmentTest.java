@@ -0,0 +1,127 @@
+package com.example.kafkaUpload.ledger;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that ledger records survive reopening and aggregate by status, scan status and latency.
+ */
+class LedgerSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregatesAppendedRecords() throws Exception {
+        LedgerSegment segment = LedgerSegment.openForAppend(directory.resolve("day.ledger"), 100);
+        for (int i = 1; i <= 10; i++) {
+            segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, i * 10L));
+        }
+        segment.put(result(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.INFECTED, 5));
+        segment.put(result(ProcessingResult.ProcessingStatus.FAILED, null, 0));
+
+        LedgerSummary summary = new LedgerSummary();
+        segment.scan(summary);
+
+        assertThat(summary.records()).isEqualTo(12);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN)).isEqualTo(10);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.INFECTED)).isEqualTo(1);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.FAILED, null)).isEqualTo(1);
+
+        Map<String, Object> report = summary.toMap();
+        assertThat((Map<String, Long>) report.get("byStatus"))
+                .containsEntry("COMPLETED", 10L)
+                .containsEntry("FAILED", 2L);
+        assertThat((Map<String, Long>) report.get("byScanStatus")).containsEntry("NOT_SCANNED", 1L);
+        assertThat((Map<String, Object>) report.get("processingTimeMs")).containsEntry("max", 100L);
+    }
+
+    @Test
+    void reopenedSegmentContinuesAfterTheLastRecord() throws Exception {
+        Path file = directory.resolve("day.ledger");
+        LedgerSegment segment = LedgerSegment.openForAppend(file, 100);
+        segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, 1));
+        segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, 2));
+        segment.force();
+
+        LedgerSegment reopened = LedgerSegment.openForAppend(file, 100);
+        assertThat(reopened.count()).isEqualTo(2);
+        reopened.put(result(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.SCAN_FAILED, 3));
+
+        LedgerSummary summary = new LedgerSummary();
+        LedgerSegment.openForRead(file).scan(summary);
+        assertThat(summary.records()).isEqualTo(3);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.SCAN_FAILED)).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedResultsOfAFileIdReplaceItsRecord() throws Exception {
+        Path file = directory.resolve("day.ledger");
+        LedgerSegment segment = LedgerSegment.openForAppend(file, 100);
+        ProcessingResult first = result(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.SCAN_FAILED, 1);
+        segment.put(first);
+        segment.put(first);
+        segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, 2));
+        segment.force();
+
+        // The index is rebuilt on reopening, so a later retry still finds the record
+        LedgerSegment reopened = LedgerSegment.openForAppend(file, 100);
+        ProcessingResult retried = result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, 3);
+        retried.setFileId(first.getFileId());
+        reopened.put(retried);
+
+        LedgerSummary summary = new LedgerSummary();
+        reopened.scan(summary);
+        assertThat(reopened.count()).isEqualTo(2);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN)).isEqualTo(2);
+        assertThat(summary.count(ProcessingResult.ProcessingStatus.FAILED, ScanResult.ScanStatus.SCAN_FAILED)).isZero();
+    }
+
+    @Test
+    void indexGrowsWithTheRecords() throws Exception {
+        LedgerSegment segment = LedgerSegment.openForAppend(directory.resolve("day.ledger"), 10_000);
+        List<ProcessingResult> results = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ProcessingResult result = result(ProcessingResult.ProcessingStatus.COMPLETED, ScanResult.ScanStatus.CLEAN, i);
+            results.add(result);
+            segment.put(result);
+        }
+        results.forEach(segment::put);
+
+        assertThat(segment.count()).isEqualTo(5_000);
+    }
+
+    @Test
+    void refusesRecordsBeyondCapacity() throws Exception {
+        LedgerSegment segment = LedgerSegment.openForAppend(directory.resolve("day.ledger"), 2);
+
+        assertThat(segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, null, 1))).isTrue();
+        assertThat(segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, null, 1))).isTrue();
+        assertThat(segment.put(result(ProcessingResult.ProcessingStatus.COMPLETED, null, 1))).isFalse();
+        assertThat(segment.count()).isEqualTo(2);
+    }
+
+    private static ProcessingResult result(ProcessingResult.ProcessingStatus status, ScanResult.ScanStatus scanStatus,
+                                           long processingTimeMs) {
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(UUID.randomUUID().toString());
+        result.setStatus(status);
+        result.setScanStatus(scanStatus);
+        result.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN));
+        result.setEndTime(LocalDateTime.now());
+        result.setProcessingTimeMs(processingTimeMs);
+        return result;
+    }
+}
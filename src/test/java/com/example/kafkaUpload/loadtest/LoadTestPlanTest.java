@@ -0,0 +1,55 @@
+package com.example.kafkaUpload.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies that the send schedule of a plan matches its rate profile.
+ */
+class LoadTestPlanTest {
+
+    @Test
+    void constantPlanSpacesMessagesEvenly() {
+        LoadTestPlan plan = LoadTestPlan.constant(200, 10);
+
+        assertThat(plan.intendedOffsetSeconds(0)).isZero();
+        assertThat(plan.intendedOffsetSeconds(100)).isCloseTo(0.5, within(1e-9));
+        assertThat(plan.intendedOffsetSeconds(1999)).isLessThan(10);
+        assertThat(plan.intendedOffsetSeconds(2000)).isInfinite();
+    }
+
+    @Test
+    void rampPlanSendsTheIntegralOfItsRate() {
+        LoadTestPlan plan = new LoadTestPlan(LoadProfile.RAMP, 300, 100, 0, 10, 1, false);
+
+        // (100 + 300) / 2 msg/s over 10 s
+        assertThat(plan.intendedOffsetSeconds(1999)).isLessThan(10);
+        assertThat(plan.intendedOffsetSeconds(2000)).isInfinite();
+        // 100 * 5 + 20 * 5^2 / 2 messages are due after 5 s
+        assertThat(plan.intendedOffsetSeconds(750)).isCloseTo(5.0, within(1e-9));
+        assertThat(plan.rateAt(5)).isCloseTo(200, within(1e-9));
+    }
+
+    @Test
+    void stepPlanHoldsEachRateForItsStep() {
+        LoadTestPlan plan = new LoadTestPlan(LoadProfile.STEP, 300, 100, 3, 30, 1, false);
+
+        assertThat(plan.rateAt(5)).isEqualTo(100);
+        assertThat(plan.rateAt(15)).isEqualTo(200);
+        assertThat(plan.rateAt(25)).isEqualTo(300);
+        // 1000 messages in the first step, then 200 msg/s
+        assertThat(plan.intendedOffsetSeconds(1000)).isCloseTo(10.0, within(1e-9));
+        assertThat(plan.intendedOffsetSeconds(1100)).isCloseTo(10.5, within(1e-9));
+        assertThat(plan.intendedOffsetSeconds(6000)).isInfinite();
+    }
+
+    @Test
+    void rampWithoutDurationIsRejected() {
+        LoadTestPlan plan = new LoadTestPlan(LoadProfile.RAMP, 300, 100, 0, 0, 1, false);
+
+        assertThatThrownBy(plan::validate).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.kafkaUpload.status;
+
+import com.example.kafkaUpload.model.ProcessingResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the status store keeps the latest result per fileId within its bound.
+ */
+class ProcessingStatusStoreTest {
+
+    @Test
+    void keepsTheLatestResultOfAFile() {
+        ProcessingStatusStore store = new ProcessingStatusStore(new SimpleMeterRegistry(), 10);
+
+        store.apply(result("a", ProcessingResult.ProcessingStatus.FAILED));
+        ProcessingResult completed = result("a", ProcessingResult.ProcessingStatus.COMPLETED);
+        completed.setCompletedSteps(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION));
+        completed.setEndTime(LocalDateTime.now());
+        completed.setProcessingTimeMs(42);
+        store.apply(completed);
+
+        FileStatus status = store.get("a");
+        assertThat(status.status()).isEqualTo(ProcessingResult.ProcessingStatus.COMPLETED);
+        assertThat(status.completedSteps()).containsExactly(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION);
+        assertThat(status.endTime()).isNotNull();
+        assertThat(status.processingTimeMs()).isEqualTo(42);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUpdatedFiles() {
+        ProcessingStatusStore store = new ProcessingStatusStore(new SimpleMeterRegistry(), 2);
+
+        store.apply(result("a", ProcessingResult.ProcessingStatus.COMPLETED));
+        store.apply(result("b", ProcessingResult.ProcessingStatus.COMPLETED));
+        store.apply(result("a", ProcessingResult.ProcessingStatus.FAILED));
+        store.apply(result("c", ProcessingResult.ProcessingStatus.COMPLETED));
+
+        assertThat(store.get("b")).isNull();
+        assertThat(store.getAll(List.of("a", "b", "c"))).containsOnlyKeys("a", "c");
+    }
+
+    @Test
+    void tombstonesRemoveFiles() {
+        ProcessingStatusStore store = new ProcessingStatusStore(new SimpleMeterRegistry(), 10);
+
+        store.onResults(List.of(
+                new ConsumerRecord<>("processing-results", 0, 0, "a", result("a", ProcessingResult.ProcessingStatus.COMPLETED)),
+                new ConsumerRecord<>("processing-results", 0, 1, "b", result("b", ProcessingResult.ProcessingStatus.FAILED)),
+                new ConsumerRecord<>("processing-results", 0, 2, "a", null)));
+
+        assertThat(store.get("a")).isNull();
+        assertThat(store.get("b").status()).isEqualTo(ProcessingResult.ProcessingStatus.FAILED);
+        assertThat(store.get("b").endTime()).isNull();
+    }
+
+    private static ProcessingResult result(String fileId, ProcessingResult.ProcessingStatus status) {
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(fileId);
+        result.setStatus(status);
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.kafkaUpload.temporal;
+
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import com.example.kafkaUpload.model.ThumbnailRendition;
+import com.example.kafkaUpload.model.ThumbnailResult;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies pipeline payload round trips, compatibility with the default converter and the history size saved.
+ */
+class PipelineDataConverterTest {
+
+    private final DataConverter converter = PipelineDataConverter.newInstance(true, 1024);
+    private final DataConverter defaultConverter = DefaultDataConverter.newDefaultInstance();
+
+    @Test
+    void roundTripsEveryPipelinePayload() {
+        FileProcessingMessage message = message();
+        for (Object value : List.of(message, scanResult(), thumbnailResult(), result(message), message.getFilePath())) {
+            assertThat(roundTrip(converter, value)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void readsPayloadsOfTheDefaultConverterAndTheCompactEncodingWhenDisabled() {
+        FileProcessingMessage message = message();
+        ProcessingResult result = result(message);
+        DataConverter encodingOff = PipelineDataConverter.newInstance(false, -1);
+
+        Optional<Payloads> legacy = defaultConverter.toPayloads(result);
+        assertThat(converter.fromPayloads(0, legacy, ProcessingResult.class, ProcessingResult.class)).isEqualTo(result);
+
+        Optional<Payloads> compact = converter.toPayloads(message);
+        assertThat(encodingOff.fromPayloads(0, compact, FileProcessingMessage.class, FileProcessingMessage.class))
+                .isEqualTo(message);
+    }
+
+    @Test
+    void deflatesLargePayloadsOnly() {
+        List<FileProcessingMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(message());
+        }
+
+        int defaultBytes = defaultConverter.toPayloads(batch).get().getSerializedSize();
+        Optional<Payloads> deflated = converter.toPayloads(batch);
+        assertThat(deflated.get().getPayloads(0).getMetadataMap().get("encoding").toStringUtf8())
+                .isEqualTo(DeflatePayloadCodec.ENCODING);
+        assertThat(deflated.get().getSerializedSize()).isLessThan(defaultBytes / 2);
+        assertThat(converter.fromPayloads(0, deflated, List.class, List.class)).hasSize(50);
+
+        Optional<Payloads> small = converter.toPayloads(message());
+        assertThat(small.get().getPayloads(0).getMetadataMap().get("encoding").toStringUtf8())
+                .isEqualTo(CompactPayloadConverter.ENCODING);
+    }
+
+    @Test
+    void shrinksTheHistoryOfOneWorkflow() {
+        FileProcessingMessage message = message();
+        ProcessingResult result = result(message);
+        // Workflow input, scan and thumbnail inputs and results, publish input and workflow result
+        List<Object> history = List.of(message, message.getFilePath(), scanResult(), message.getFilePath(),
+                thumbnailResult(), result, result);
+
+        assertThat(historyBytes(converter, history)).isLessThan(historyBytes(defaultConverter, history) * 3 / 4);
+    }
+
+    static int historyBytes(DataConverter converter, List<Object> payloads) {
+        return payloads.stream().mapToInt(value -> converter.toPayloads(value).get().getSerializedSize()).sum();
+    }
+
+    private static Object roundTrip(DataConverter converter, Object value) {
+        return converter.fromPayloads(0, converter.toPayloads(value), value.getClass(), value.getClass());
+    }
+
+    static FileProcessingMessage message() {
+        return new FileProcessingMessage(UUID.randomUUID().toString(), "./test-data/large_image.jpg",
+                "large_image.jpg", "jpg", 2_457_600L, LocalDateTime.of(2025, 7, 19, 11, 29, 58, 1_000));
+    }
+
+    static ScanResult scanResult() {
+        return new ScanResult(null, ScanResult.ScanStatus.CLEAN, null, "ClamAV-Simulator",
+                LocalDateTime.of(2025, 7, 19, 11, 30, 0), 1_250,
+                "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+    }
+
+    static ThumbnailResult thumbnailResult() {
+        ThumbnailRendition rendition = new ThumbnailRendition("small", 150, 150);
+        rendition.setThumbnailPath("./thumbnails/large_image_small.jpg");
+        rendition.setWidth(150);
+        rendition.setHeight(100);
+        rendition.setSize(6_144);
+        rendition.setFormat("jpg");
+        return new ThumbnailResult(null, "./test-data/large_image.jpg", "./thumbnails/large_image_small.jpg",
+                ThumbnailResult.ThumbnailStatus.CREATED, 150, 100, 6_144, "jpg",
+                LocalDateTime.of(2025, 7, 19, 11, 30, 1), 420, null, new ArrayList<>(List.of(rendition)));
+    }
+
+    static ProcessingResult result(FileProcessingMessage message) {
+        ProcessingResult result = new ProcessingResult();
+        result.setFileId(message.getFileId());
+        result.setFilePath(message.getFilePath());
+        result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+        result.setCompletedSteps(new ArrayList<>(List.of(ProcessingResult.ProcessingStep.VIRUS_SCAN,
+                ProcessingResult.ProcessingStep.THUMBNAIL_CREATION)));
+        result.setStartTime(LocalDateTime.of(2025, 7, 19, 11, 29, 59));
+        result.setEndTime(LocalDateTime.of(2025, 7, 19, 11, 30, 1));
+        result.setProcessingTimeMs(2_000);
+        result.setRequestCreatedAt(message.getCreatedAt());
+        result.setScanStatus(ScanResult.ScanStatus.CLEAN);
+        return result;
+    }
+}
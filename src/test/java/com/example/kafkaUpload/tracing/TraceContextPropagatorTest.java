@@ -0,0 +1,71 @@
+package com.example.kafkaUpload.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelPropagator;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.temporal.api.common.v1.Payload;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that a trace started on the client side survives the trip through Temporal
+ * headers and parents the spans created on the activity side.
+ */
+class TraceContextPropagatorTest {
+
+    @Test
+    void activitySpanContinuesTraceOfWorkflowStarter() {
+        RecordingSpanExporter exporter = new RecordingSpanExporter(100);
+        OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                        .build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+        io.opentelemetry.api.trace.Tracer otelTracer = openTelemetry.getTracer("test");
+        Tracer tracer = new OtelTracer(otelTracer, new OtelCurrentTraceContext(), event -> { });
+        Propagator propagator = new OtelPropagator(openTelemetry.getPropagators(), otelTracer);
+        TraceContextPropagator contextPropagator = new TraceContextPropagator(tracer, propagator);
+
+        // Client side: the context of the current span is captured at workflow start
+        Span start = tracer.nextSpan().name("temporal.workflow.start").start();
+        Map<String, Payload> headers;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(start)) {
+            headers = contextPropagator.serializeContext(contextPropagator.getCurrentContext());
+        } finally {
+            start.end();
+        }
+        assertThat(headers).containsKey("traceparent");
+
+        // Activity side: the deserialized context parents the activity span
+        contextPropagator.setCurrentContext(contextPropagator.deserializeContext(headers));
+        try {
+            assertThat(contextPropagator.getCurrentContext()).isEqualTo(TraceContextPropagator.current());
+            propagator.extract(TraceContextPropagator.current(), Map::get)
+                    .name("temporal.activity scanFile")
+                    .start()
+                    .end();
+        } finally {
+            contextPropagator.setCurrentContext(null);
+        }
+
+        assertThat(exporter.getFinishedSpans()).hasSize(2);
+        SpanData activity = exporter.getFinishedSpans().get(1);
+        assertThat(activity.getName()).isEqualTo("temporal.activity scanFile");
+        assertThat(activity.getTraceId()).isEqualTo(start.context().traceId());
+        assertThat(activity.getParentSpanId()).isEqualTo(start.context().spanId());
+        assertThat(exporter.getTrace(start.context().traceId())).hasSize(2);
+    }
+}
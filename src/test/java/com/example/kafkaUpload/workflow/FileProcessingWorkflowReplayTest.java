@@ -0,0 +1,209 @@
+package com.example.kafkaUpload.workflow;
+
+import com.example.kafkaUpload.activity.FileInspectionActivity;
+import com.example.kafkaUpload.activity.ResultPublishActivity;
+import com.example.kafkaUpload.activity.ThumbnailActivity;
+import com.example.kafkaUpload.activity.VirusScanActivity;
+import com.example.kafkaUpload.constants.SearchAttributeConstants;
+import com.example.kafkaUpload.model.FileInspection;
+import com.example.kafkaUpload.model.FileProcessingMessage;
+import com.example.kafkaUpload.model.ProcessingResult;
+import com.example.kafkaUpload.model.ScanResult;
+import com.example.kafkaUpload.model.ThumbnailResult;
+import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Workflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Verifies that the getVersion-guarded command sequences of the file processing workflow replay,
+ * both for histories of the current code and for histories written before the guarded changes.
+ */
+class FileProcessingWorkflowReplayTest {
+
+    private static final String TASK_QUEUE = "file-processing-replay";
+    private static final String BASELINE_TASK_QUEUE = "file-processing-replay-baseline";
+
+    private final VirusScanActivity virusScanActivity = activityMock(VirusScanActivity.class);
+    private final ThumbnailActivity thumbnailActivity = activityMock(ThumbnailActivity.class);
+    private final ResultPublishActivity resultPublishActivity = activityMock(ResultPublishActivity.class);
+    private final FileInspectionActivity fileInspectionActivity = activityMock(FileInspectionActivity.class);
+    private TestWorkflowEnvironment testEnv;
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        testEnv.registerSearchAttribute(SearchAttributeConstants.VIRUS_SCAN_RESULT.getName(),
+                IndexedValueType.INDEXED_VALUE_TYPE_TEXT);
+        testEnv.registerSearchAttribute(SearchAttributeConstants.COMPLETED_STEPS.getName(),
+                IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD_LIST);
+
+        FileProcessingWorkflowOptions options =
+                new FileProcessingWorkflowOptions(true, 10, true, 1048576, null, null);
+        Worker worker = testEnv.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationFactory(FileProcessingWorkflow.class,
+                () -> new FileProcessingWorkflowImpl(options));
+        worker.registerActivitiesImplementations(
+                virusScanActivity, thumbnailActivity, resultPublishActivity, fileInspectionActivity);
+
+        Worker baselineWorker = testEnv.newWorker(BASELINE_TASK_QUEUE);
+        baselineWorker.registerWorkflowImplementationFactory(FileProcessingWorkflow.class,
+                BaselineFileProcessingWorkflow::new);
+        baselineWorker.registerActivitiesImplementations(virusScanActivity, thumbnailActivity);
+
+        testEnv.start();
+
+        when(virusScanActivity.scanFile(anyString())).thenReturn(scanResult());
+        when(virusScanActivity.scanFileWithChecksum(anyString(), anyString())).thenReturn(scanResult());
+        when(thumbnailActivity.createThumbnail(anyString())).thenReturn(thumbnailResult());
+        when(thumbnailActivity.createStagedThumbnail(anyString(), anyString())).thenReturn(thumbnailResult());
+        when(thumbnailActivity.promoteThumbnails(any(ThumbnailResult.class))).thenReturn(thumbnailResult());
+        when(fileInspectionActivity.inspectFile(anyString(), anyLong())).thenReturn(inspection());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    void currentHistoryRecordsEveryChangeAndReplays() throws Exception {
+        ProcessingResult result = run(TASK_QUEUE, "current");
+
+        assertThat(result.getStatus()).isEqualTo(ProcessingResult.ProcessingStatus.COMPLETED);
+        verify(fileInspectionActivity).inspectFile(anyString(), anyLong());
+        verify(thumbnailActivity).createStagedThumbnail(anyString(), anyString());
+        verify(resultPublishActivity).publishResult(any(ProcessingResult.class));
+
+        WorkflowExecutionHistory history = testEnv.getWorkflowClient().fetchHistory("replay-current");
+        assertThat(changeIds(history)).contains(
+                FileProcessingWorkflowImpl.RECORDED_OPTIONS_CHANGE,
+                FileProcessingWorkflowImpl.LOCAL_INSPECTION_CHANGE,
+                FileProcessingWorkflowImpl.PUBLISH_RESULT_CHANGE);
+
+        // The worker's options come from the recorded side effect, so the defaults replay the same commands
+        WorkflowReplayer.replayWorkflowExecution(history, FileProcessingWorkflowImpl.class);
+    }
+
+    @Test
+    void historyFromBeforeTheGuardedChangesReplaysOnTheDefaultBranches() throws Exception {
+        ProcessingResult result = run(BASELINE_TASK_QUEUE, "baseline");
+
+        assertThat(result.getStatus()).isEqualTo(ProcessingResult.ProcessingStatus.COMPLETED);
+        verify(resultPublishActivity, never()).publishResult(any(ProcessingResult.class));
+
+        WorkflowExecutionHistory history = testEnv.getWorkflowClient().fetchHistory("replay-baseline");
+        assertThat(changeIds(history)).isEmpty();
+
+        // No version markers: recorded options, local inspection and result publication all stay off
+        WorkflowReplayer.replayWorkflowExecution(history, FileProcessingWorkflowImpl.class);
+    }
+
+    private ProcessingResult run(String taskQueue, String name) {
+        WorkflowClient client = testEnv.getWorkflowClient();
+        FileProcessingWorkflow workflow = client.newWorkflowStub(FileProcessingWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(taskQueue)
+                        .setWorkflowId("replay-" + name)
+                        .build());
+        return workflow.processFile(message(name));
+    }
+
+    private static List<String> changeIds(WorkflowExecutionHistory history) {
+        return history.getEvents().stream()
+                .filter(HistoryEvent::hasMarkerRecordedEventAttributes)
+                .map(HistoryEvent::getMarkerRecordedEventAttributes)
+                .filter(attributes -> attributes.getMarkerName().equals("Version"))
+                .map(attributes -> attributes.getDetailsOrThrow("changeId").getPayloads(0).getData().toStringUtf8())
+                .map(changeId -> changeId.replace("\"", ""))
+                .toList();
+    }
+
+    private static <T> T activityMock(Class<T> activityInterface) {
+        return mock(activityInterface, withSettings().withoutAnnotations());
+    }
+
+    private static FileProcessingMessage message(String fileId) {
+        FileProcessingMessage message = new FileProcessingMessage();
+        message.setFileId(fileId);
+        message.setFilePath("./test-data/" + fileId + ".jpg");
+        message.setFileName(fileId + ".jpg");
+        message.setFileType("jpg");
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+
+    private static ScanResult scanResult() {
+        ScanResult scanResult = new ScanResult();
+        scanResult.setStatus(ScanResult.ScanStatus.CLEAN);
+        return scanResult;
+    }
+
+    private static ThumbnailResult thumbnailResult() {
+        ThumbnailResult thumbnailResult = new ThumbnailResult();
+        thumbnailResult.setStatus(ThumbnailResult.ThumbnailStatus.CREATED);
+        thumbnailResult.setThumbnailPath("./thumbnails/thumb.jpg");
+        return thumbnailResult;
+    }
+
+    private static FileInspection inspection() {
+        FileInspection inspection = new FileInspection();
+        inspection.setExists(true);
+        inspection.setImage(true);
+        inspection.setChecksum("abc");
+        return inspection;
+    }
+
+    /**
+     * The workflow as it was before any getVersion-guarded change: scan, thumbnail, search attributes.
+     */
+    public static class BaselineFileProcessingWorkflow implements FileProcessingWorkflow {
+
+        private final VirusScanActivity virusScanActivity = Workflow.newActivityStub(VirusScanActivity.class,
+                FileProcessingWorkflowOptions.pipelineActivityOptions());
+        private final ThumbnailActivity thumbnailActivity = Workflow.newActivityStub(ThumbnailActivity.class,
+                FileProcessingWorkflowOptions.pipelineActivityOptions());
+
+        @Override
+        public ProcessingResult processFile(FileProcessingMessage message) {
+            ProcessingResult result = new ProcessingResult();
+            result.setFileId(message.getFileId());
+            result.setCompletedSteps(new ArrayList<>());
+
+            ScanResult scanResult = virusScanActivity.scanFile(message.getFilePath());
+            result.getCompletedSteps().add(ProcessingResult.ProcessingStep.VIRUS_SCAN);
+            if (message.isImageFile() && thumbnailActivity.createThumbnail(message.getFilePath()).isSuccessful()) {
+                result.getCompletedSteps().add(ProcessingResult.ProcessingStep.THUMBNAIL_CREATION);
+            }
+            result.setStatus(ProcessingResult.ProcessingStatus.COMPLETED);
+
+            Workflow.upsertTypedSearchAttributes(
+                    SearchAttributeConstants.VIRUS_SCAN_RESULT.valueSet(scanResult.getStatus().toString()),
+                    SearchAttributeConstants.COMPLETED_STEPS.valueSet(
+                            result.getCompletedSteps().stream().map(Enum::toString).toList()));
+            return result;
+        }
+    }
+}